@@ -0,0 +1,96 @@
+package com.gmail.tylerfilla.widget.panview;
+
+final class AxisLock {
+
+    static final int AXIS_NONE = 0;
+    static final int AXIS_HORIZONTAL = 1;
+    static final int AXIS_VERTICAL = 2;
+
+    private final int touchSlop;
+
+    // Largest angle off an axis, in degrees, that still locks to it
+    private float angle;
+
+    // How long after a locked gesture the next one keeps its lock, in milliseconds
+    private int duration;
+
+    private int axis;
+    private boolean decided;
+
+    private float downX;
+    private float downY;
+
+    // End of the last locked gesture (zero if none)
+    private long releaseTime;
+
+    AxisLock(int touchSlop, float angle, int duration) {
+        this.touchSlop = touchSlop;
+        this.angle = angle;
+        this.duration = duration;
+    }
+
+    float getAngle() {
+        return angle;
+    }
+
+    void setAngle(float angle) {
+        this.angle = angle;
+    }
+
+    int getDuration() {
+        return duration;
+    }
+
+    void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    int getAxis() {
+        return axis;
+    }
+
+    void onDown(float x, float y, long time) {
+        downX = x;
+        downY = y;
+
+        // A gesture soon after a locked one carries on along the same axis
+        decided = axis != AXIS_NONE && releaseTime != 0 && time - releaseTime <= duration;
+        if (!decided) {
+            axis = AXIS_NONE;
+        }
+    }
+
+    boolean onMove(float x, float y) {
+        // One decision per gesture
+        if (decided) {
+            return false;
+        }
+
+        float dx = Math.abs(x - downX);
+        float dy = Math.abs(y - downY);
+
+        // Too little movement to tell a direction
+        if (dx <= touchSlop && dy <= touchSlop) {
+            return false;
+        }
+
+        decided = true;
+
+        // Lock to an axis only if the gesture starts out close enough to it
+        double degrees = Math.toDegrees(Math.atan2(dy, dx));
+        if (degrees <= angle) {
+            axis = AXIS_HORIZONTAL;
+        } else if (degrees >= 90.0 - angle) {
+            axis = AXIS_VERTICAL;
+        } else {
+            axis = AXIS_NONE;
+        }
+
+        return axis != AXIS_NONE;
+    }
+
+    void onUp(long time) {
+        releaseTime = axis == AXIS_NONE ? 0 : time;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import java.util.ArrayList;
+
+final class BitmapPool {
+
+    private final int maxFree;
+
+    private int width;
+    private int height;
+
+    // Bitmaps of the current size waiting for reuse
+    private ArrayList<Bitmap> freeBitmaps;
+
+    BitmapPool(int maxFree) {
+        this.maxFree = maxFree;
+
+        freeBitmaps = new ArrayList<>();
+    }
+
+    Bitmap acquire(int width, int height) {
+        // Pooled bitmaps of another size are useless now
+        if (width != this.width || height != this.height) {
+            clear();
+
+            this.width = width;
+            this.height = height;
+        }
+
+        // Reuse if possible
+        if (!freeBitmaps.isEmpty()) {
+            Bitmap bitmap = freeBitmaps.remove(freeBitmaps.size() - 1);
+            bitmap.eraseColor(Color.TRANSPARENT);
+
+            return bitmap;
+        }
+
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    void release(Bitmap bitmap) {
+        // Keep it if it fits and there is room
+        if (bitmap.getWidth() == width && bitmap.getHeight() == height && freeBitmaps.size() < maxFree) {
+            freeBitmaps.add(bitmap);
+        }
+    }
+
+    void clear() {
+        freeBitmaps.clear();
+    }
+
+}
@@ -0,0 +1,350 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Build;
+import android.support.v4.view.GravityCompat;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.view.Gravity;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+public class CullingLayout extends FrameLayout implements PanView.OnVisibleContentChangedListener {
+
+    private static final int DEF_CULL_MARGIN = 0;
+
+    private static final boolean DEF_HIT_TEST_INDEX_ENABLED = false;
+    private static final int DEF_HIT_TEST_CELL_SIZE = 256;
+
+    // Same default as FrameLayout
+    private static final int DEFAULT_CHILD_GRAVITY = Gravity.TOP | GravityCompat.START;
+
+    private int cullMargin;
+
+    // Children outside this region are neither drawn nor laid out
+    private Rect cullRect;
+    private boolean culling;
+
+    // Set when layout skipped a child, so it is laid out once it may be in view
+    private boolean layoutDeferred;
+
+    // Grid of child bounds for finding touch targets (null unless enabled)
+    private SpatialGrid<View> hitTestGrid;
+    private int hitTestCellSize;
+
+    // Child receiving the current gesture by way of the grid, all pointers included
+    private View touchTarget;
+    private boolean disallowIntercept;
+
+    public CullingLayout(Context context) {
+        super(context);
+
+        initialize();
+    }
+
+    public CullingLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        initialize();
+        handleAttrs(attrs, 0, 0);
+    }
+
+    public CullingLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        initialize();
+        handleAttrs(attrs, defStyleAttr, 0);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    public CullingLayout(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+
+        initialize();
+        handleAttrs(attrs, defStyleAttr, defStyleRes);
+    }
+
+    private void initialize() {
+        cullMargin = DEF_CULL_MARGIN;
+        cullRect = new Rect();
+
+        hitTestCellSize = DEF_HIT_TEST_CELL_SIZE;
+        setHitTestIndexEnabled(DEF_HIT_TEST_INDEX_ENABLED);
+    }
+
+    private void handleAttrs(AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        // Get styled attributes for CullingLayout
+        TypedArray styledAttrs = getContext().getTheme().obtainStyledAttributes(attrs, R.styleable.CullingLayout, defStyleAttr, defStyleRes);
+
+        cullMargin = styledAttrs.getDimensionPixelSize(R.styleable.CullingLayout_cullMargin, cullMargin);
+
+        hitTestCellSize = styledAttrs.getDimensionPixelSize(R.styleable.CullingLayout_hitTestCellSize, hitTestCellSize);
+        setHitTestIndexEnabled(styledAttrs.getBoolean(R.styleable.CullingLayout_hitTestIndexEnabled, isHitTestIndexEnabled()));
+
+        // Recycle styled attributes for CullingLayout
+        styledAttrs.recycle();
+    }
+
+    public int getCullMargin() {
+        return cullMargin;
+    }
+
+    public void setCullMargin(int cullMargin) {
+        this.cullMargin = cullMargin;
+
+        // Cull afresh around the next viewport
+        stopCulling();
+    }
+
+    public boolean isCulling() {
+        return culling;
+    }
+
+    public void stopCulling() {
+        // Everything is drawn and laid out again
+        culling = false;
+
+        if (layoutDeferred) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    public boolean isHitTestIndexEnabled() {
+        return hitTestGrid != null;
+    }
+
+    public void setHitTestIndexEnabled(boolean hitTestIndexEnabled) {
+        // Ignore non-changes
+        if (hitTestIndexEnabled == isHitTestIndexEnabled()) {
+            return;
+        }
+
+        touchTarget = null;
+
+        if (hitTestIndexEnabled) {
+            // Filled in by the next layout
+            hitTestGrid = new SpatialGrid<>(hitTestCellSize);
+            requestLayout();
+        } else {
+            hitTestGrid = null;
+        }
+    }
+
+    public int getHitTestCellSize() {
+        return hitTestCellSize;
+    }
+
+    public void setHitTestCellSize(int hitTestCellSize) {
+        if (hitTestCellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+
+        this.hitTestCellSize = hitTestCellSize;
+
+        // Rebuild with the new cells
+        if (hitTestGrid != null) {
+            setHitTestIndexEnabled(false);
+            setHitTestIndexEnabled(true);
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        // Linear walk of the children unless indexed
+        if (hitTestGrid == null) {
+            return super.dispatchTouchEvent(event);
+        }
+
+        int action = event.getAction() & MotionEvent.ACTION_MASK;
+
+        // Look the target up once per gesture
+        if (action == MotionEvent.ACTION_DOWN) {
+            touchTarget = null;
+            disallowIntercept = false;
+
+            View target = hitTestGrid.find((int) event.getX() + getScrollX(), (int) event.getY() + getScrollY());
+
+            // Only plain, visible children can be hit by their layout bounds, and only if this layout lets the gesture through
+            if (target == null || target.getVisibility() != VISIBLE || ViewCompat.getTranslationX(target) != 0f || ViewCompat.getTranslationY(target) != 0f || onInterceptTouchEvent(event)) {
+                return super.dispatchTouchEvent(event);
+            }
+
+            if (dispatchToChild(target, event)) {
+                touchTarget = target;
+                return true;
+            }
+
+            // Declined, so the linear walk tries the children below it and then this layout (the target sees the down a second time)
+            return super.dispatchTouchEvent(event);
+        }
+
+        // Gesture not routed by the grid
+        if (touchTarget == null) {
+            return super.dispatchTouchEvent(event);
+        }
+
+        // Taken away by this layout, which gets the rest of the gesture by way of the linear walk
+        if (!disallowIntercept && onInterceptTouchEvent(event)) {
+            MotionEvent cancel = MotionEvent.obtain(event);
+            cancel.setAction(MotionEvent.ACTION_CANCEL);
+            dispatchToChild(touchTarget, cancel);
+            cancel.recycle();
+
+            touchTarget = null;
+            return true;
+        }
+
+        // Further pointers follow the first to the target, as if motion event splitting were off
+        boolean handled = dispatchToChild(touchTarget, event);
+
+        // Gesture over
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            touchTarget = null;
+            disallowIntercept = false;
+        }
+
+        return handled;
+    }
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        // Kept for gestures routed by the grid, which skip the framework's own bookkeeping
+        this.disallowIntercept = disallowIntercept;
+
+        super.requestDisallowInterceptTouchEvent(disallowIntercept);
+    }
+
+    @Override
+    public void onVisibleContentChanged(Rect visibleRect) {
+        // Still inside the region culled for, so no child can have come into view
+        if (culling && cullRect.contains(visibleRect)) {
+            return;
+        }
+
+        // Cull around the viewport, with the margin as slack before this has to run again
+        cullRect.set(visibleRect);
+        cullRect.inset(-cullMargin, -cullMargin);
+        culling = true;
+
+        // Children skipped by layout may be in view now
+        if (layoutDeferred) {
+            requestLayout();
+        }
+        invalidate();
+    }
+
+    boolean isCulledFor(Rect rect) {
+        // Everything is laid out when not culling, otherwise only once the layout around the region has run
+        return !culling || (cullRect.contains(rect) && !isLayoutRequested());
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        // Skip children out of view
+        if (culling && !isInCullRect(child.getLeft(), child.getTop(), child.getRight(), child.getBottom())) {
+            return false;
+        }
+
+        return super.drawChild(canvas, child, drawingTime);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        layoutDeferred = false;
+
+        // Children not seen by this layout leave the grid
+        if (hitTestGrid != null) {
+            hitTestGrid.beginSweep();
+        }
+
+        int parentLeft = getPaddingLeft();
+        int parentRight = right - left - getPaddingRight();
+        int parentTop = getPaddingTop();
+        int parentBottom = bottom - top - getPaddingBottom();
+
+        int layoutDirection = ViewCompat.getLayoutDirection(this);
+
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+
+            // Gone children take no space
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+
+            LayoutParams layoutParams = (LayoutParams) child.getLayoutParams();
+
+            int width = child.getMeasuredWidth();
+            int height = child.getMeasuredHeight();
+
+            int gravity = layoutParams.gravity == -1 ? DEFAULT_CHILD_GRAVITY : layoutParams.gravity;
+            int absoluteGravity = GravityCompat.getAbsoluteGravity(gravity, layoutDirection);
+
+            // Position as FrameLayout would
+            int childLeft;
+            switch (absoluteGravity & Gravity.HORIZONTAL_GRAVITY_MASK) {
+            case Gravity.CENTER_HORIZONTAL:
+                childLeft = parentLeft + (parentRight - parentLeft - width) / 2 + layoutParams.leftMargin - layoutParams.rightMargin;
+                break;
+            case Gravity.RIGHT:
+                childLeft = parentRight - width - layoutParams.rightMargin;
+                break;
+            default:
+                childLeft = parentLeft + layoutParams.leftMargin;
+                break;
+            }
+
+            int childTop;
+            switch (gravity & Gravity.VERTICAL_GRAVITY_MASK) {
+            case Gravity.CENTER_VERTICAL:
+                childTop = parentTop + (parentBottom - parentTop - height) / 2 + layoutParams.topMargin - layoutParams.bottomMargin;
+                break;
+            case Gravity.BOTTOM:
+                childTop = parentBottom - height - layoutParams.bottomMargin;
+                break;
+            default:
+                childTop = parentTop + layoutParams.topMargin;
+                break;
+            }
+
+            // Leave out of view children where they are, as long as that is out of view too
+            if (culling && !isInCullRect(childLeft, childTop, childLeft + width, childTop + height) && !isInCullRect(child.getLeft(), child.getTop(), child.getRight(), child.getBottom())) {
+                layoutDeferred = true;
+            } else {
+                child.layout(childLeft, childTop, childLeft + width, childTop + height);
+            }
+
+            // Index where the child is, later children on top as in a linear walk (unchanged children cost a lookup)
+            if (hitTestGrid != null) {
+                hitTestGrid.put(child, i, child.getLeft(), child.getTop(), child.getRight(), child.getBottom());
+            }
+        }
+
+        if (hitTestGrid != null) {
+            hitTestGrid.endSweep();
+        }
+    }
+
+    private boolean dispatchToChild(View child, MotionEvent event) {
+        // Map into child coordinates, then put the event back as it was
+        float offsetX = getScrollX() - child.getLeft();
+        float offsetY = getScrollY() - child.getTop();
+
+        event.offsetLocation(offsetX, offsetY);
+        boolean handled = child.dispatchTouchEvent(event);
+        event.offsetLocation(-offsetX, -offsetY);
+
+        return handled;
+    }
+
+    private boolean isInCullRect(int left, int top, int right, int bottom) {
+        return left < cullRect.right && right > cullRect.left && top < cullRect.bottom && bottom > cullRect.top;
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.gmail.tylerfilla.widget.panview;
+
+final class FlingPredictor {
+
+    // Spline constants, as used by OverScroller
+    private static final float INFLEXION = 0.35f;
+    private static final float DECELERATION_RATE = (float) (Math.log(0.78) / Math.log(0.9));
+
+    // Default ViewConfiguration scroll friction
+    private static final float SCROLL_FRICTION = 0.015f;
+
+    // Standard gravity, in m/s^2
+    private static final float GRAVITY_EARTH = 9.80665f;
+
+    private final float physicalCoeff;
+
+    FlingPredictor(float density) {
+        // Same deceleration OverScroller derives from screen density
+        float ppi = density * 160.0f;
+        physicalCoeff = GRAVITY_EARTH * 39.37f * ppi * 0.84f;
+    }
+
+    double getFlingDistance(int velocity) {
+        // No velocity, no distance
+        if (velocity == 0) {
+            return 0.0;
+        }
+
+        double l = Math.log(INFLEXION * Math.abs(velocity) / (SCROLL_FRICTION * physicalCoeff));
+        return SCROLL_FRICTION * physicalCoeff * Math.exp(DECELERATION_RATE / (DECELERATION_RATE - 1.0) * l);
+    }
+
+    int getFinalPosition(int start, int velocity, int min, int max) {
+        // Travel along the velocity, then stop at the bounds like the scroller does
+        long end = start + Math.round(Math.signum(velocity) * getFlingDistance(velocity));
+        return (int) Math.max(min, Math.min(max, end));
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.view.MotionEvent;
+
+final class GestureClassifier {
+
+    // Event goes to the pan engine
+    static final int ROUTE_ENGINE = 0x1;
+
+    // Event goes to the hosted content
+    static final int ROUTE_CONTENT = 0x2;
+
+    // Content must be sent a cancel in place of this event
+    static final int ROUTE_CANCEL_CONTENT = 0x4;
+
+    private final int touchSlop;
+
+    private boolean panning;
+
+    private float downX;
+    private float downY;
+
+    GestureClassifier(int touchSlop) {
+        this.touchSlop = touchSlop;
+    }
+
+    boolean isPanning() {
+        return panning;
+    }
+
+    int classify(int actionMasked, float x, float y, boolean settling) {
+        switch (actionMasked) {
+        case MotionEvent.ACTION_DOWN:
+            downX = x;
+            downY = y;
+
+            // Touching a settling pan catches it, so the content never sees this gesture
+            panning = settling;
+            break;
+        case MotionEvent.ACTION_MOVE:
+            // Once either axis passes the touch slop, the rest of the gesture is a pan
+            if (!panning && (Math.abs(x - downX) > touchSlop || Math.abs(y - downY) > touchSlop)) {
+                panning = true;
+
+                return ROUTE_ENGINE | ROUTE_CANCEL_CONTENT;
+            }
+            break;
+        }
+
+        // The engine sees every event, the content only those of non-pan gestures
+        return panning ? ROUTE_ENGINE : ROUTE_ENGINE | ROUTE_CONTENT;
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.gmail.tylerfilla.widget.panview;
+
+final class ListenerList<T> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    // Current snapshot, replaced (never modified) on every add and remove
+    private Object[] listeners;
+
+    ListenerList() {
+        listeners = EMPTY;
+    }
+
+    void add(T listener) {
+        // Copy on write so snapshots already handed out stay intact
+        Object[] newListeners = new Object[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+
+        listeners = newListeners;
+    }
+
+    void remove(T listener) {
+        // Find first occurrence
+        int index = -1;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].equals(listener)) {
+                index = i;
+                break;
+            }
+        }
+
+        // Not registered
+        if (index == -1) {
+            return;
+        }
+
+        // Copy on write without the removed listener
+        Object[] newListeners = listeners.length == 1 ? EMPTY : new Object[listeners.length - 1];
+        System.arraycopy(listeners, 0, newListeners, 0, index);
+        System.arraycopy(listeners, index + 1, newListeners, index, listeners.length - index - 1);
+
+        listeners = newListeners;
+    }
+
+    void clear() {
+        listeners = EMPTY;
+    }
+
+    int size() {
+        return listeners.length;
+    }
+
+    Object[] snapshot() {
+        // Safe to walk by index while listeners add or remove themselves
+        return listeners;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.gmail.tylerfilla.widget.panview;
+
+final class MeasureCache {
+
+    private boolean valid;
+
+    // Set by the first measure after a layout, cleared by the layout
+    private boolean measuredSinceLayout;
+
+    // Inputs of the last measure
+    private int widthMeasureSpec;
+    private int heightMeasureSpec;
+    private int availableWidth;
+    private int availableHeight;
+    private boolean fillViewportWidth;
+    private boolean fillViewportHeight;
+
+    boolean isValid(int widthMeasureSpec, int heightMeasureSpec, int availableWidth, int availableHeight, boolean fillViewportWidth, boolean fillViewportHeight, boolean layoutRequested) {
+        // Nothing measured yet
+        if (!valid) {
+            return false;
+        }
+
+        // A layout request is served by the first measure after it, not by every measure before the layout
+        if (layoutRequested && !measuredSinceLayout) {
+            return false;
+        }
+
+        return widthMeasureSpec == this.widthMeasureSpec && heightMeasureSpec == this.heightMeasureSpec && availableWidth == this.availableWidth && availableHeight == this.availableHeight && fillViewportWidth == this.fillViewportWidth && fillViewportHeight == this.fillViewportHeight;
+    }
+
+    void update(int widthMeasureSpec, int heightMeasureSpec, int availableWidth, int availableHeight, boolean fillViewportWidth, boolean fillViewportHeight) {
+        this.widthMeasureSpec = widthMeasureSpec;
+        this.heightMeasureSpec = heightMeasureSpec;
+        this.availableWidth = availableWidth;
+        this.availableHeight = availableHeight;
+        this.fillViewportWidth = fillViewportWidth;
+        this.fillViewportHeight = fillViewportHeight;
+
+        valid = true;
+        measuredSinceLayout = true;
+    }
+
+    void onLayout() {
+        measuredSinceLayout = false;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.view.animation.Interpolator;
+
+final class PanAnimator {
+
+    // Step used to estimate the interpolator's slope
+    private static final float SLOPE_STEP = 0.001f;
+
+    private Interpolator interpolator;
+    private int duration;
+
+    private boolean running;
+    private long startTime;
+
+    private float startX;
+    private float startY;
+    private int targetX;
+    private int targetY;
+
+    // Velocity carried over from a retargeted animation, in pixels per millisecond
+    private float carryVelocityX;
+    private float carryVelocityY;
+
+    // Position as of the last step
+    private float currX;
+    private float currY;
+    private float velocityX;
+    private float velocityY;
+
+    PanAnimator(Interpolator interpolator, int duration) {
+        this.interpolator = interpolator;
+        this.duration = duration;
+    }
+
+    Interpolator getInterpolator() {
+        return interpolator;
+    }
+
+    void setInterpolator(Interpolator interpolator) {
+        this.interpolator = interpolator;
+    }
+
+    int getDuration() {
+        return duration;
+    }
+
+    void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    int getTargetX() {
+        return targetX;
+    }
+
+    int getTargetY() {
+        return targetY;
+    }
+
+    int getCurrX() {
+        return Math.round(currX);
+    }
+
+    int getCurrY() {
+        return Math.round(currY);
+    }
+
+    void start(int fromX, int fromY, int toX, int toY, long now) {
+        if (running) {
+            // Retarget from wherever we are, keeping the current velocity so there is no jolt
+            step(now);
+
+            startX = currX;
+            startY = currY;
+            carryVelocityX = velocityX;
+            carryVelocityY = velocityY;
+        } else {
+            startX = fromX;
+            startY = fromY;
+            carryVelocityX = 0f;
+            carryVelocityY = 0f;
+        }
+
+        targetX = toX;
+        targetY = toY;
+
+        startTime = now;
+        running = true;
+
+        currX = startX;
+        currY = startY;
+    }
+
+    void stop() {
+        running = false;
+
+        velocityX = 0f;
+        velocityY = 0f;
+    }
+
+    boolean step(long now) {
+        // Nothing to do
+        if (!running) {
+            return false;
+        }
+
+        // Fraction of the animation elapsed
+        float t = duration <= 0 ? 1f : Math.min(1f, Math.max(0f, (float) (now - startTime) / duration));
+
+        if (t >= 1f) {
+            currX = targetX;
+            currY = targetY;
+
+            stop();
+            return false;
+        }
+
+        // Eased travel to the target, plus a carried velocity term that dies out by the end
+        float eased = interpolator.getInterpolation(t);
+        float carry = t * (1f - t) * (1f - t) * duration;
+
+        currX = startX + (targetX - startX) * eased + carryVelocityX * carry;
+        currY = startY + (targetY - startY) * eased + carryVelocityY * carry;
+
+        // Velocity for a retarget to carry on with
+        float slope = getSlope(t) / duration;
+        float carrySlope = (1f - t) * (1f - 3f * t);
+
+        velocityX = (targetX - startX) * slope + carryVelocityX * carrySlope;
+        velocityY = (targetY - startY) * slope + carryVelocityY * carrySlope;
+
+        return true;
+    }
+
+    private float getSlope(float t) {
+        // Central difference, one-sided at the ends
+        float t0 = Math.max(0f, t - SLOPE_STEP);
+        float t1 = Math.min(1f, t + SLOPE_STEP);
+
+        return (interpolator.getInterpolation(t1) - interpolator.getInterpolation(t0)) / (t1 - t0);
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.gmail.tylerfilla.widget.panview;
+
+public final class PanMetrics {
+
+    // Frame interval assumed until the display tells us otherwise (60 Hz)
+    private static final long DEF_FRAME_INTERVAL_NANOS = 16666667L;
+
+    private long frameIntervalNanos;
+
+    private int framesRendered;
+    private int framesDropped;
+
+    // Listener dispatch time, per frame and overall
+    private long frameDispatchNanos;
+    private long lastFrameDispatchNanos;
+    private long maxFrameDispatchNanos;
+    private long totalDispatchNanos;
+
+    private int overBudgetCount;
+
+    private long lastFlingDurationNanos;
+    private int lastFlingDistance;
+
+    private long lastTouchLatencyNanos;
+    private long maxTouchLatencyNanos;
+
+    // Time of the previous frame while panning (zero between pans)
+    private long lastFrameTimeNanos;
+
+    // Oldest touch not yet reflected on screen (zero if none)
+    private long pendingTouchTimeNanos;
+    private boolean scrolledSinceTouch;
+
+    // Fling in flight (start time zero if none)
+    private long flingStartTimeNanos;
+    private int flingStartX;
+    private int flingStartY;
+
+    PanMetrics() {
+        frameIntervalNanos = DEF_FRAME_INTERVAL_NANOS;
+    }
+
+    public int getFramesRendered() {
+        return framesRendered;
+    }
+
+    public int getFramesDropped() {
+        return framesDropped;
+    }
+
+    public long getLastFrameDispatchNanos() {
+        return lastFrameDispatchNanos;
+    }
+
+    public long getMaxFrameDispatchNanos() {
+        return maxFrameDispatchNanos;
+    }
+
+    public long getTotalDispatchNanos() {
+        return totalDispatchNanos;
+    }
+
+    public int getOverBudgetCount() {
+        return overBudgetCount;
+    }
+
+    public long getLastFlingDurationNanos() {
+        return lastFlingDurationNanos;
+    }
+
+    public int getLastFlingDistance() {
+        return lastFlingDistance;
+    }
+
+    public long getLastTouchLatencyNanos() {
+        return lastTouchLatencyNanos;
+    }
+
+    public long getMaxTouchLatencyNanos() {
+        return maxTouchLatencyNanos;
+    }
+
+    public void reset() {
+        framesRendered = 0;
+        framesDropped = 0;
+
+        frameDispatchNanos = 0;
+        lastFrameDispatchNanos = 0;
+        maxFrameDispatchNanos = 0;
+        totalDispatchNanos = 0;
+
+        overBudgetCount = 0;
+
+        lastFlingDurationNanos = 0;
+        lastFlingDistance = 0;
+
+        lastTouchLatencyNanos = 0;
+        maxTouchLatencyNanos = 0;
+    }
+
+    long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+
+    void setFrameIntervalNanos(long frameIntervalNanos) {
+        this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    void onFrame(long frameTimeNanos) {
+        // Frames that should have come between this one and the last were dropped
+        if (lastFrameTimeNanos != 0) {
+            long intervals = (frameTimeNanos - lastFrameTimeNanos + frameIntervalNanos / 2) / frameIntervalNanos;
+            if (intervals > 1) {
+                framesDropped += (int) (intervals - 1);
+            }
+        }
+
+        framesRendered++;
+        lastFrameTimeNanos = frameTimeNanos;
+
+        // Close out listener dispatch for the frame just ended
+        lastFrameDispatchNanos = frameDispatchNanos;
+        maxFrameDispatchNanos = Math.max(maxFrameDispatchNanos, frameDispatchNanos);
+        frameDispatchNanos = 0;
+
+        // The oldest pending touch reaches the screen with the first frame that scrolled for it
+        if (pendingTouchTimeNanos != 0 && scrolledSinceTouch) {
+            lastTouchLatencyNanos = frameTimeNanos - pendingTouchTimeNanos;
+            maxTouchLatencyNanos = Math.max(maxTouchLatencyNanos, lastTouchLatencyNanos);
+
+            pendingTouchTimeNanos = 0;
+            scrolledSinceTouch = false;
+        }
+    }
+
+    void onPanStopped() {
+        // Idle time between pans is not dropped frames
+        lastFrameTimeNanos = 0;
+
+        pendingTouchTimeNanos = 0;
+        scrolledSinceTouch = false;
+    }
+
+    void onTouchMoved(long eventTimeNanos) {
+        // Later moves ride along with the oldest one still waiting
+        if (pendingTouchTimeNanos == 0) {
+            pendingTouchTimeNanos = eventTimeNanos;
+            scrolledSinceTouch = false;
+        }
+    }
+
+    void onScrolled() {
+        scrolledSinceTouch = true;
+    }
+
+    boolean onListenerDispatched(long elapsedNanos, long budgetNanos) {
+        frameDispatchNanos += elapsedNanos;
+        totalDispatchNanos += elapsedNanos;
+
+        // Tell the caller to flag the listener
+        if (elapsedNanos > budgetNanos) {
+            overBudgetCount++;
+            return true;
+        }
+
+        return false;
+    }
+
+    void onFlingStarted(long timeNanos, int x, int y) {
+        // A fling updated mid-flight is still the same fling
+        if (flingStartTimeNanos != 0) {
+            return;
+        }
+
+        flingStartTimeNanos = timeNanos;
+        flingStartX = x;
+        flingStartY = y;
+    }
+
+    void onFlingEnded(long timeNanos, int x, int y) {
+        // No fling in flight
+        if (flingStartTimeNanos == 0) {
+            return;
+        }
+
+        lastFlingDurationNanos = timeNanos - flingStartTimeNanos;
+        lastFlingDistance = (int) Math.round(Math.hypot(x - flingStartX, y - flingStartY));
+
+        flingStartTimeNanos = 0;
+    }
+
+}
@@ -1,56 +1,246 @@
 package com.gmail.tylerfilla.widget.panview;
 
-import android.animation.ObjectAnimator;
 import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.support.v4.util.LongSparseArray;
+import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.VelocityTrackerCompat;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.view.animation.FastOutSlowInInterpolator;
+import android.support.v4.widget.ScrollerCompat;
 import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.GestureDetector;
 import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.WindowManager;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
 import android.widget.FrameLayout;
 import android.widget.HorizontalScrollView;
 import android.widget.ScrollView;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class PanView extends FrameLayout {
 
-    private static final long SCROLL_CHANGE_EXPIRATION = 200000000l;
+    public static final int PAN_STATE_IDLE = 0;
+    public static final int PAN_STATE_DRAGGING = 1;
+    public static final int PAN_STATE_SETTLING = 2;
 
     private static final boolean DEF_FILL_VIEWPORT_HEIGHT = false;
     private static final boolean DEF_FILL_VIEWPORT_WIDTH = false;
 
     private static final boolean DEF_USE_NATIVE_SMOOTH_SCROLL = true;
+    private static final boolean DEF_USE_UNIFIED_ENGINE = false;
+    private static final boolean DEF_LAZY_ENGINE = false;
+
+    private static final boolean DEF_COALESCE_PAN_CHANGES = false;
+
+    private static final boolean DEF_TILE_CACHE_ENABLED = false;
+    private static final int DEF_TILE_CACHE_TILE_SIZE = 256;
+
+    private static final int DEF_TILE_PLACEHOLDER_COLOR = Color.LTGRAY;
+
+    private static final boolean DEF_SNAPSHOT_WHILE_PANNING = false;
+
+    private static final boolean DEF_METRICS_ENABLED = false;
+    private static final long DEF_PAN_CHANGED_LISTENER_BUDGET_NANOS = 2000000L;
+
+    private static final boolean DEF_AXIS_LOCK_ENABLED = false;
+    private static final float DEF_AXIS_LOCK_ANGLE = 30.0f;
+    private static final int DEF_AXIS_LOCK_DURATION = 0;
+
+    private static final boolean DEF_ZOOM_ENABLED = false;
+    private static final float DEF_MIN_ZOOM = 0.25f;
+    private static final float DEF_MAX_ZOOM = 4.0f;
+
+    // Zoom a double tap toggles to from no zoom
+    private static final float DOUBLE_TAP_ZOOM = 2.0f;
+
+    // Pyramid levels, each half the resolution of the one before (0 is one to one)
+    private static final int MIN_DETAIL_LEVEL = -3;
+    private static final int MAX_DETAIL_LEVEL = 5;
+
+    // Coarser levels searched for a stand-in while a tile renders
+    private static final int MAX_STAND_IN_LEVELS = 3;
 
     private boolean fillViewportHeight;
     private boolean fillViewportWidth;
 
     private boolean useNativeSmoothScroll;
 
-    private List<OnPanChangedListener> panChangedListenerList;
-    private List<OnPanStoppedListener> panStoppedListenerList;
+    // The nested engine runs a touch pipeline per axis that can move, so content panning both ways only gets single-pass dispatch from the unified engine
+    private boolean useUnifiedEngine;
+    private boolean lazyEngine;
+
+    private ListenerList<OnPanChangedListener> panChangedListenerList;
+    private ListenerList<OnPanStoppedListener> panStoppedListenerList;
+    private ListenerList<OnPanStateChangedListener> panStateChangedListenerList;
+    private ListenerList<OnVisibleContentChangedListener> visibleContentChangedListenerList;
+
+    // Part of the content in view, in unzoomed content coordinates
+    private Rect visibleContentRect;
 
     private HorizontalScrollView scrollViewX;
     private ScrollView scrollViewY;
 
-    private ScrollbarLens scrollbarLens;
+    private PanContainer panContainer;
+
+    private ScrollbarRenderer scrollbarRenderer;
+
+    private TileLayer tileLayer;
+    private int tileMargin;
+
+    private boolean tileCacheEnabled;
+    private boolean snapshotWhilePanning;
+    private int tileCacheTileSize;
+    private int tileCacheMaxSize;
+    private TileCache tileCache;
+    private Canvas tileCanvas;
+
+    // Picture of the child taken as a pan starts, drawn in its place until the pan stops
+    private Bitmap snapshotBitmap;
+    private boolean snapshotValid;
+    private float snapshotScale;
+
+    // Region of the child in the snapshot, in content coordinates
+    private Rect snapshotRect;
+
+    private RenderedContentView renderedContentView;
+    private LongSparseArray<TileRenderTask> pendingTileRenders;
+    private TileRenderTask.Callback tileRenderCallback;
+    private Paint tilePlaceholderPaint;
+    private Paint tilePaint;
+    private Rect tileSource;
+    private RectF tileDestination;
+
+    // Visible tile range the render queue was last planned for
+    private int plannedLevel;
+    private int plannedFirstColumn;
+    private int plannedLastColumn;
+    private int plannedFirstRow;
+    private int plannedLastRow;
+
+    private FlingPredictor flingPredictor;
+    private PrefetchPlanner prefetchPlanner;
+
+    // Tile range of the predicted landing viewport
+    private int landingFirstColumn;
+    private int landingLastColumn;
+    private int landingFirstRow;
+    private int landingLastRow;
+
+    // Predicted landing viewport in content coordinates
+    private Rect landingContentRect;
+
+    private boolean zoomEnabled;
+    private float minZoom;
+    private float maxZoom;
+    private float zoom;
+    private boolean zooming;
+
+    // Detail scale content was last told about
+    private float reportedDetailScale;
+
+    private Interpolator zoomInterpolator;
+    private Runnable zoomAnimationRunnable;
+    private long zoomAnimationStartTime;
+    private int zoomAnimationDuration;
+    private float zoomAnimationFrom;
+    private float zoomAnimationTo;
+    private float zoomAnimationFocusX;
+    private float zoomAnimationFocusY;
+    private boolean zoomAnimationRunning;
+
+    // Viewport the nested engine resolves match parent content against
+    private int contentAvailableWidth;
+    private int contentAvailableHeight;
+    private MeasureCache contentMeasureCache;
+
+    // Measure of a child hosted directly, as the lazy engine waits for it to overflow
+    private MeasureCache directMeasureCache;
 
     private boolean spliced;
+    private boolean attached;
+
+    // Set while detached or out of sight, with pan work stopped and pan changes held back
+    private boolean suspended;
+    private boolean panChangeSuspended;
+
+    private int panState;
+
+    private boolean touchActive;
 
-    private long timeLastScrollChangeX;
-    private long timeLastScrollChangeY;
+    // Set while a synthetic gesture catches the nested engine's flings
+    private boolean abortingNestedFlings;
 
-    private boolean isScrollingX;
-    private boolean isScrollingY;
+    // Nested engine axes with room to move when the current gesture began
+    private boolean gesturePansX;
+    private boolean gesturePansY;
 
-    private int oldScrollX;
-    private int oldScrollY;
+    private GestureClassifier gestureClassifier;
+
+    private boolean axisLockEnabled;
+    private AxisLock axisLock;
+
+    // Set when a lock lands mid-gesture, until the engine lets go of the other axis
+    private boolean axisLockLanded;
+    private boolean contentTouchTarget;
+
+    private boolean panActiveSinceSettleCheck;
+    private boolean settleCheckScheduled;
+    private Runnable settleCheckRunnable;
+
+    private int reportedPanX;
+    private int reportedPanY;
+
+    private boolean coalescePanChanges;
+    private boolean panChangePending;
+    private boolean panChangeDispatchScheduled;
+    private Runnable panChangeDispatchRunnable;
+
+    private PanAnimator panAnimator;
+    private Runnable panAnimationRunnable;
+
+    // Set while several scroll changes should add up to one pan change
+    private boolean panChangeDeferred;
+
+    // Open pan batches and where they will leave the pan
+    private int panBatchDepth;
+    private int panBatchX;
+    private int panBatchY;
+
+    // Logical pan space, with the real scroll kept near the middle of a window onto it
+    private boolean virtualCanvasEnabled;
+    private VirtualAxis virtualAxisX;
+    private VirtualAxis virtualAxisY;
+    private ListenerList<OnVirtualPanChangedListener> virtualPanChangedListenerList;
+
+    private long reportedVirtualPanX;
+    private long reportedVirtualPanY;
+
+    private boolean metricsEnabled;
+    private long panChangedListenerBudgetNanos;
+    private PanMetrics panMetrics;
+    private ListenerList<OnPanMetricsListener> panMetricsListenerList;
+    private ListenerList<OnListenerOverBudgetListener> listenerOverBudgetListenerList;
+    private MetricsFrameCallback metricsFrameCallback;
+    private Runnable metricsFrameRunnable;
+    private boolean metricsFrameScheduled;
 
     public PanView(Context context) {
         super(context);
@@ -81,307 +271,493 @@ public class PanView extends FrameLayout {
         fillViewportWidth = DEF_FILL_VIEWPORT_WIDTH;
 
         useNativeSmoothScroll = DEF_USE_NATIVE_SMOOTH_SCROLL;
+        useUnifiedEngine = DEF_USE_UNIFIED_ENGINE;
+        lazyEngine = DEF_LAZY_ENGINE;
 
-        panChangedListenerList = new ArrayList<>();
-        panStoppedListenerList = new ArrayList<>();
-
-        scrollViewX = new HorizontalScrollView(getContext()) {
+        coalescePanChanges = DEF_COALESCE_PAN_CHANGES;
 
-            @Override
-            public boolean onInterceptTouchEvent(MotionEvent event) {
-                // Intercept all touch events
-                return true;
-            }
+        tileCacheEnabled = DEF_TILE_CACHE_ENABLED;
+        snapshotWhilePanning = DEF_SNAPSHOT_WHILE_PANNING;
+        tileCacheTileSize = DEF_TILE_CACHE_TILE_SIZE;
 
-            @Override
-            public boolean onTouchEvent(MotionEvent event) {
-                // Send event to super for scroll behavior
-                super.onTouchEvent(event);
+        // Default budget of an eighth of the heap, as recommended for bitmap caches
+        tileCacheMaxSize = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
 
-                // Offset the touch location to account for horizontal scroll
-                event.offsetLocation(getScrollX() - getLeft(), 0f);
+        pendingTileRenders = new LongSparseArray<>();
 
-                // Send event to vertical scroll view
-                scrollViewY.dispatchTouchEvent(event);
+        tilePlaceholderPaint = new Paint();
+        tilePlaceholderPaint.setColor(DEF_TILE_PLACEHOLDER_COLOR);
 
-                // Never let events propagate naturally here
-                return true;
-            }
+        // Tiles are scaled whenever zoom is between levels
+        tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        tileSource = new Rect();
+        tileDestination = new RectF();
+        snapshotRect = new Rect();
 
-            @Override
-            protected void onScrollChanged(int l, int t, int oldl, int oldt) {
-                super.onScrollChanged(l, t, oldl, oldt);
+        zoomEnabled = DEF_ZOOM_ENABLED;
+        minZoom = DEF_MIN_ZOOM;
+        maxZoom = DEF_MAX_ZOOM;
+        zoom = 1f;
+        reportedDetailScale = 1f;
 
-                // Set X scroll flag
-                isScrollingX = true;
+        zoomInterpolator = new FastOutSlowInInterpolator();
+        zoomAnimationRunnable = new Runnable() {
 
-                // Store time of this scroll change
-                timeLastScrollChangeX = System.nanoTime();
+            @Override
+            public void run() {
+                // Fraction of the animation elapsed
+                float t = Math.min(1f, (float) (AnimationUtils.currentAnimationTimeMillis() - zoomAnimationStartTime) / zoomAnimationDuration);
 
-                // Store X scroll value for later use elsewhere
-                oldScrollX = l;
+                applyZoom(zoomAnimationFrom + (zoomAnimationTo - zoomAnimationFrom) * zoomInterpolator.getInterpolation(t), zoomAnimationFocusX, zoomAnimationFocusY);
 
-                // Notify listener(s)
-                for (OnPanChangedListener listener : panChangedListenerList) {
-                    listener.onPanChanged(l, scrollViewY.getScrollY(), oldl, oldScrollY);
+                // Keep going until done, then refine
+                if (t < 1f) {
+                    ViewCompat.postOnAnimation(PanView.this, this);
+                } else {
+                    zoomAnimationRunning = false;
+                    endZoom();
                 }
             }
 
+        };
+
+        tileRenderCallback = new TileRenderTask.Callback() {
+
             @Override
-            protected boolean awakenScrollBars() {
-                // Redirect to scrollbar lens
-                scrollbarLens.awakenScrollBars();
+            public void onTileRendered(TileRenderTask task) {
+                // Forget the task unless a newer one replaced it
+                long key = packTileKey(task.level, task.column, task.row);
+                if (pendingTileRenders.get(key) == task) {
+                    pendingTileRenders.remove(key);
+                }
 
-                return super.awakenScrollBars();
+                // Stale or unwanted results just give their bitmap back
+                if (tileCache == null || task.isCancelled() || task.version != tileCache.getContentVersion()) {
+                    if (tileCache != null) {
+                        tileCache.releaseBitmap(task.bitmap);
+                    }
+
+                    return;
+                }
+
+                // Blit on the next frame
+                tileCache.put(task.level, task.column, task.row, task.bitmap);
+                invalidateContent();
+
+                // This may have been the last tile missing where a fling lands
+                updateLandingReadiness();
             }
 
         };
 
-        scrollViewY = new ScrollView(getContext()) {
+        clearPlannedTileRange();
+        clearLandingTileRange();
+
+        flingPredictor = new FlingPredictor(getResources().getDisplayMetrics().density);
+        prefetchPlanner = new PrefetchPlanner();
+
+        panChangedListenerList = new ListenerList<>();
+        panStoppedListenerList = new ListenerList<>();
+        panStateChangedListenerList = new ListenerList<>();
+        visibleContentChangedListenerList = new ListenerList<>();
+
+        visibleContentRect = new Rect();
+        landingContentRect = new Rect();
+
+        // One animator, retargeted rather than restarted by each smooth pan
+        panAnimator = new PanAnimator(new FastOutSlowInInterpolator(), getResources().getInteger(android.R.integer.config_mediumAnimTime));
+        panAnimationRunnable = new Runnable() {
 
             @Override
-            public boolean onInterceptTouchEvent(MotionEvent event) {
-                // If scrolling or should start scrolling, intercept the event
-                return isScrollingX || isScrollingY || super.onInterceptTouchEvent(event);
+            public void run() {
+                // Move both axes for this frame, reporting them as one change
+                if (panAnimator.step(AnimationUtils.currentAnimationTimeMillis())) {
+                    applyPan(panAnimator.getCurrX(), panAnimator.getCurrY());
+                    ViewCompat.postOnAnimation(PanView.this, this);
+                } else {
+                    applyPan(panAnimator.getCurrX(), panAnimator.getCurrY());
+                }
             }
 
-            @Override
-            protected void onScrollChanged(int l, int t, int oldl, int oldt) {
-                super.onScrollChanged(l, t, oldl, oldt);
+        };
 
-                // Set Y scroll flag
-                isScrollingY = true;
+        virtualAxisX = new VirtualAxis();
+        virtualAxisY = new VirtualAxis();
+        virtualPanChangedListenerList = new ListenerList<>();
 
-                // Store time of this scroll change
-                timeLastScrollChangeY = System.nanoTime();
+        metricsEnabled = DEF_METRICS_ENABLED;
+        panChangedListenerBudgetNanos = DEF_PAN_CHANGED_LISTENER_BUDGET_NANOS;
+        panMetrics = new PanMetrics();
+        panMetricsListenerList = new ListenerList<>();
+        listenerOverBudgetListenerList = new ListenerList<>();
 
-                // Store Y scroll value for later use elsewhere
-                oldScrollY = t;
+        // Frames are timed by the choreographer where there is one
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            metricsFrameCallback = new MetricsFrameCallback(this);
+        } else {
+            metricsFrameRunnable = new Runnable() {
 
-                // Notify listener(s)
-                for (OnPanChangedListener listener : panChangedListenerList) {
-                    listener.onPanChanged(scrollViewX.getScrollX(), t, oldScrollX, oldt);
+                @Override
+                public void run() {
+                    onMetricsFrame(System.nanoTime());
                 }
-            }
+
+            };
+        }
+
+        panState = PAN_STATE_IDLE;
+
+        contentMeasureCache = new MeasureCache();
+        directMeasureCache = new MeasureCache();
+
+        gestureClassifier = new GestureClassifier(ViewConfiguration.get(getContext()).getScaledTouchSlop());
+
+        axisLockEnabled = DEF_AXIS_LOCK_ENABLED;
+        axisLock = new AxisLock(ViewConfiguration.get(getContext()).getScaledTouchSlop(), DEF_AXIS_LOCK_ANGLE, DEF_AXIS_LOCK_DURATION);
+
+        // Both scrollbars on by default, as with the scroll views this stands in for
+        scrollbarRenderer = new ScrollbarRenderer(this);
+        scrollbarRenderer.setHorizontalEnabled(true);
+        scrollbarRenderer.setVerticalEnabled(true);
+
+        settleCheckRunnable = new Runnable() {
 
             @Override
-            protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-                // Get child
-                View child = getChildAt(0);
+            public void run() {
+                settleCheckScheduled = false;
 
-                // Sanity check
-                if (child == null) {
-                    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+                // Only meaningful while settling
+                if (panState != PAN_STATE_SETTLING) {
                     return;
                 }
 
-                // Get child layout parameters
-                ViewGroup.LayoutParams layoutParams = child.getLayoutParams();
+                // If anything moved during the last frame, check again next frame
+                if (panActiveSinceSettleCheck) {
+                    panActiveSinceSettleCheck = false;
+                    scheduleSettleCheck();
+                } else {
+                    // Scrollers have finished
+                    setPanState(PAN_STATE_IDLE);
+                }
+            }
 
-                // Flags determining alteration state of width and height params
-                boolean setWidth = false;
-                boolean setHeight = false;
+        };
 
-                // If width is set to match parent
-                if (layoutParams.width == ViewGroup.LayoutParams.MATCH_PARENT) {
-                    // Modify width to 'redirect' parenthood to root PanView
-                    layoutParams.width = PanView.this.getMeasuredWidth();
+        panChangeDispatchRunnable = new Runnable() {
 
-                    // Set width alteration flag
-                    setWidth = true;
+            @Override
+            public void run() {
+                // Scrollers otherwise move as the frame draws, so bring them up to this frame first (drawing then finds them there)
+                boolean moved = false;
+                if (panState == PAN_STATE_SETTLING) {
+                    int panX = getPanX();
+                    int panY = getPanY();
+                    advanceScrollers();
+                    moved = getPanX() != panX || getPanY() != panY;
                 }
 
-                // If height is set to match parent
-                if (layoutParams.height == ViewGroup.LayoutParams.MATCH_PARENT) {
-                    // Modify height to 'redirect' parenthood to root PanView
-                    layoutParams.height = PanView.this.getMeasuredHeight();
+                panChangeDispatchScheduled = false;
+
+                // Deliver everything collected since the last frame
+                panChangePending = false;
+                dispatchPanChanged();
 
-                    // Set height alteration flag
-                    setHeight = true;
+                // Keep pace with the scrollers every frame while they move (a frame they sit still leaves it to the next draw)
+                if (moved && panState == PAN_STATE_SETTLING && coalescePanChanges && attached && !suspended) {
+                    ViewCompat.postOnAnimation(PanView.this, this);
+                    panChangeDispatchScheduled = true;
                 }
+            }
+
+        };
+    }
 
-                // If either width or height was altered
-                if (setWidth || setHeight) {
-                    // Update child layout parameters prior to measuring
-                    child.setLayoutParams(layoutParams);
+    private void createNestedEngine() {
+        // Already created
+        if (scrollViewX != null) {
+            return;
+        }
+
+        scrollViewX = new HorizontalScrollView(getContext()) {
+
+            @Override
+            public boolean onInterceptTouchEvent(MotionEvent event) {
+                // Intercept all touch events
+                return true;
+            }
+
+            @Override
+            public boolean onTouchEvent(MotionEvent event) {
+                // Not a real gesture, so only the scroller should see it
+                if (abortingNestedFlings) {
+                    return super.onTouchEvent(event);
                 }
 
-                // Measure like normal
-                super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+                int action = MotionEventCompat.getActionMasked(event);
+
+                // Classify the event exactly once
+                int route = gestureClassifier.classify(action, event.getX(), event.getY(), panState != PAN_STATE_IDLE);
 
-                // Restore original width if altered
-                if (setWidth) {
-                    layoutParams.width = ViewGroup.LayoutParams.MATCH_PARENT;
+                // Each axis runs a full touch pipeline, so only those with room to move get the gesture (decided once, so each sees all of it)
+                if (action == MotionEvent.ACTION_DOWN) {
+                    gesturePansX = getScrollRangeX() > 0;
+                    gesturePansY = getScrollRangeY() > 0;
                 }
 
-                // Restore original height if altered
-                if (setHeight) {
-                    layoutParams.height = ViewGroup.LayoutParams.MATCH_PARENT;
+                boolean feedX = gesturePansX;
+                boolean feedY = gesturePansY;
+
+                int lockedAxis = getLockedAxis();
+
+                if (lockedAxis != AxisLock.AXIS_NONE) {
+                    // The other axis lets go of the gesture once the lock lands
+                    if (axisLockLanded) {
+                        MotionEvent cancel = MotionEvent.obtain(event);
+                        cancel.setAction(MotionEvent.ACTION_CANCEL);
+                        if (lockedAxis == AxisLock.AXIS_HORIZONTAL && feedY) {
+                            scrollViewY.onTouchEvent(cancel);
+                        } else if (lockedAxis == AxisLock.AXIS_VERTICAL && feedX) {
+                            super.onTouchEvent(cancel);
+                        }
+                        cancel.recycle();
+
+                        axisLockLanded = false;
+                    }
+
+                    // Only the locked axis scrolls, tracks velocity and flings
+                    feedX &= lockedAxis == AxisLock.AXIS_HORIZONTAL;
+                    feedY &= lockedAxis == AxisLock.AXIS_VERTICAL;
                 }
 
-                // Update child layout parameters after restoring
-                child.setLayoutParams(layoutParams);
+                // Send event to the axes for scroll behavior (vertical only reads Y, so no offset is needed)
+                if (feedX) {
+                    super.onTouchEvent(event);
+                }
+                if (feedY) {
+                    scrollViewY.onTouchEvent(event);
+                }
 
-                // If should fill viewport width, but is currently too small
-                if (fillViewportWidth && child.getMeasuredWidth() < PanView.this.getMeasuredWidth()) {
-                    int old = layoutParams.width;
+                // Send event straight to the child until the gesture turns out to be a pan
+                if ((route & GestureClassifier.ROUTE_CONTENT) != 0) {
+                    if (action == MotionEvent.ACTION_DOWN) {
+                        contentTouchTarget = dispatchToContent(event);
+                    } else if (contentTouchTarget) {
+                        dispatchToContent(event);
+                    }
+                } else if ((route & GestureClassifier.ROUTE_CANCEL_CONTENT) != 0 && contentTouchTarget) {
+                    // Child loses the gesture
+                    MotionEvent cancel = MotionEvent.obtain(event);
+                    cancel.setAction(MotionEvent.ACTION_CANCEL);
+                    dispatchToContent(cancel);
+                    cancel.recycle();
+
+                    contentTouchTarget = false;
+                }
 
-                    layoutParams.width = PanView.this.getMeasuredWidth();
+                // Never let events propagate naturally here
+                return true;
+            }
 
-                    child.setLayoutParams(layoutParams);
+            private int getScrollRangeX() {
+                View child = getChildAt(0);
+                return child == null ? 0 : Math.max(0, child.getWidth() - (getWidth() - getPaddingLeft() - getPaddingRight()));
+            }
 
-                    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            private int getScrollRangeY() {
+                View child = scrollViewY.getChildAt(0);
+                return child == null ? 0 : Math.max(0, child.getHeight() - (scrollViewY.getHeight() - scrollViewY.getPaddingTop() - scrollViewY.getPaddingBottom()));
+            }
 
-                    layoutParams.width = old;
+            @Override
+            public void fling(int velocityX) {
+                super.fling(velocityX);
 
-                    child.setLayoutParams(layoutParams);
+                // The scroller is private, so predict where this axis lands
+                View child = getChildAt(0);
+                int rangeX = child == null ? 0 : Math.max(0, child.getWidth() - getWidth());
+                int finalX = flingPredictor.getFinalPosition(getScrollX(), velocityX, 0, rangeX);
+
+                // Keep what the vertical axis predicted for this fling
+                if (prefetchPlanner.isFlinging()) {
+                    onFlingStarted(velocityX, prefetchPlanner.getVelocityY(), finalX, prefetchPlanner.getFinalY());
+                } else {
+                    onFlingStarted(velocityX, 0, finalX, getPanY());
                 }
             }
 
+            @Override
+            protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+                super.onScrollChanged(l, t, oldl, oldt);
+
+                // Drive pan state machine
+                onPanActivity(true);
+
+                // Notify listener(s)
+                notifyPanChanged();
+            }
+
             @Override
             protected boolean awakenScrollBars() {
-                // Redirect to scrollbar lens
-                scrollbarLens.awakenScrollBars();
+                // Called every frame while the scroller runs, so note activity for the settle check
+                onPanActivity(false);
+
+                // Redirect to scrollbar renderer
+                showScrollbars();
 
                 return super.awakenScrollBars();
             }
 
         };
 
-        scrollbarLens = new ScrollbarLens(getContext());
+        scrollViewY = new ScrollView(getContext()) {
+
+            @Override
+            public void fling(int velocityY) {
+                super.fling(velocityY);
 
-        // Schedule scroll expiration checks (a bit hacky...)
-        post(new Runnable() {
+                // The scroller is private, so predict where this axis lands
+                View child = getChildAt(0);
+                int rangeY = child == null ? 0 : Math.max(0, child.getHeight() - getHeight());
+                int finalY = flingPredictor.getFinalPosition(getScrollY(), velocityY, 0, rangeY);
+
+                // Keep what the horizontal axis predicted for this fling
+                if (prefetchPlanner.isFlinging()) {
+                    onFlingStarted(prefetchPlanner.getVelocityX(), velocityY, prefetchPlanner.getFinalX(), finalY);
+                } else {
+                    onFlingStarted(0, velocityY, getPanX(), finalY);
+                }
+            }
 
             @Override
-            public void run() {
-                // Whether panning has just stopped
-                boolean stopped = false;
+            protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+                super.onScrollChanged(l, t, oldl, oldt);
 
-                // If X scroll has expired
-                if (isScrollingX && System.nanoTime() - timeLastScrollChangeX > SCROLL_CHANGE_EXPIRATION) {
-                    isScrollingX = false;
+                // Drive pan state machine
+                onPanActivity(true);
 
-                    // Park X scroll
-                    scrollViewX.scrollTo(scrollViewX.getScrollX(), scrollViewX.getScrollY());
+                // Notify listener(s)
+                notifyPanChanged();
+            }
 
-                    // If not scrolling vertically, either
-                    if (!isScrollingY) {
-                        stopped = true;
-                    }
+            @Override
+            protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+                // Draw cached tiles in place of the child if enabled
+                if (isDrawingFromTiles()) {
+                    drawCachedContent(canvas, child);
+                    return false;
                 }
 
-                // If Y scroll has expired
-                if (isScrollingY && System.nanoTime() - timeLastScrollChangeY > SCROLL_CHANGE_EXPIRATION) {
-                    isScrollingY = false;
+                return super.drawChild(canvas, child, drawingTime);
+            }
 
-                    // Park Y scroll
-                    scrollViewY.scrollTo(scrollViewY.getScrollX(), scrollViewY.getScrollY());
+            @Override
+            protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+                // Get child
+                View child = getChildAt(0);
 
-                    // If not scrolling horizontally, either
-                    if (!isScrollingX) {
-                        stopped = true;
-                    }
+                // Sanity check
+                if (child == null || child.getVisibility() == GONE) {
+                    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+                    return;
                 }
 
-                // Notify listeners if just stopped
-                if (stopped) {
-                    for (OnPanStoppedListener listener : panStoppedListenerList) {
-                        listener.onPanStopped();
-                    }
+                MarginLayoutParams layoutParams = (MarginLayoutParams) child.getLayoutParams();
+
+                // Space available to the child within the viewport (our own specs are unbounded horizontally)
+                int availableWidth = contentAvailableWidth - layoutParams.leftMargin - layoutParams.rightMargin;
+                int availableHeight = contentAvailableHeight - layoutParams.topMargin - layoutParams.bottomMargin;
+
+                // Measure the child only if something it depends on changed
+                if (!contentMeasureCache.isValid(widthMeasureSpec, heightMeasureSpec, availableWidth, availableHeight, fillViewportWidth, fillViewportHeight, child.isLayoutRequested())) {
+                    measureContent(child, availableWidth, availableHeight);
+                    contentMeasureCache.update(widthMeasureSpec, heightMeasureSpec, availableWidth, availableHeight, fillViewportWidth, fillViewportHeight);
                 }
 
-                // Set up next iteration
-                postDelayed(this, 200l);
+                // Wrap the child, as a scroll view would
+                int width = getPaddingLeft() + layoutParams.leftMargin + child.getMeasuredWidth() + layoutParams.rightMargin + getPaddingRight();
+                int height = getPaddingTop() + layoutParams.topMargin + child.getMeasuredHeight() + layoutParams.bottomMargin + getPaddingBottom();
+                setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+            }
+
+            @Override
+            protected void onLayout(boolean changed, int l, int t, int r, int b) {
+                super.onLayout(changed, l, t, r, b);
+
+                // The next layout request needs a fresh measure
+                contentMeasureCache.onLayout();
+
+                // Content may have moved or been replaced
+                updateVisibleContentRect(true);
+            }
+
+            @Override
+            protected boolean awakenScrollBars() {
+                // Called every frame while the scroller runs, so note activity for the settle check
+                onPanActivity(false);
+
+                // Redirect to scrollbar renderer
+                showScrollbars();
+
+                return super.awakenScrollBars();
             }
 
-        });
+        };
 
         // Disable native scrollbars
         scrollViewX.setHorizontalScrollBarEnabled(false);
         scrollViewY.setVerticalScrollBarEnabled(false);
     }
 
-    private void handleAttrs(AttributeSet attrs, int defStyleAttr, int defStyleRes) {
-        // Array of internal attributes specific to View
-        int[] internalStyleableView = null;
-
-        // Indices of relevant attributes in the above array
-        int internalStyleableView_fadeScrollbars = -1;
-        int internalStyleableView_scrollbarAlwaysDrawHorizontalTrack = -1;
-        int internalStyleableView_scrollbarAlwaysDrawVerticalTrack = -1;
-        int internalStyleableView_scrollbarDefaultDelayBeforeFade = -1;
-        int internalStyleableView_scrollbarFadeDuration = -1;
-        int internalStyleableView_scrollbarSize = -1;
-        int internalStyleableView_scrollbarStyle = -1;
-        int internalStyleableView_scrollbarThumbHorizontal = -1;
-        int internalStyleableView_scrollbarThumbVertical = -1;
-        int internalStyleableView_scrollbarTrackHorizontal = -1;
-        int internalStyleableView_scrollbarTrackVertical = -1;
-        int internalStyleableView_scrollbars = -1;
-
-        // Flag indicating success of extraction of above information
-        boolean internalStyleableViewExtracted = false;
+    private void createUnifiedEngine() {
+        // Already created
+        if (panContainer != null) {
+            return;
+        }
 
-        try {
-            // Get private "styleable" from android.R
-            Class internalStyleable = Class.forName("android.R$styleable");
-
-            // Extract relevant information from android.R.styleable
-            internalStyleableView = (int[]) internalStyleable.getDeclaredField("View").get(null);
-            internalStyleableView_fadeScrollbars = internalStyleable.getDeclaredField("View_fadeScrollbars").getInt(null);
-            internalStyleableView_scrollbarAlwaysDrawHorizontalTrack = internalStyleable.getDeclaredField("View_scrollbarAlwaysDrawHorizontalTrack").getInt(null);
-            internalStyleableView_scrollbarAlwaysDrawVerticalTrack = internalStyleable.getDeclaredField("View_scrollbarAlwaysDrawVerticalTrack").getInt(null);
-            internalStyleableView_scrollbarDefaultDelayBeforeFade = internalStyleable.getDeclaredField("View_scrollbarDefaultDelayBeforeFade").getInt(null);
-            internalStyleableView_scrollbarFadeDuration = internalStyleable.getDeclaredField("View_scrollbarFadeDuration").getInt(null);
-            internalStyleableView_scrollbarSize = internalStyleable.getDeclaredField("View_scrollbarSize").getInt(null);
-            internalStyleableView_scrollbarStyle = internalStyleable.getDeclaredField("View_scrollbarStyle").getInt(null);
-            internalStyleableView_scrollbarThumbHorizontal = internalStyleable.getDeclaredField("View_scrollbarThumbHorizontal").getInt(null);
-            internalStyleableView_scrollbarThumbVertical = internalStyleable.getDeclaredField("View_scrollbarThumbVertical").getInt(null);
-            internalStyleableView_scrollbarTrackHorizontal = internalStyleable.getDeclaredField("View_scrollbarTrackHorizontal").getInt(null);
-            internalStyleableView_scrollbarTrackVertical = internalStyleable.getDeclaredField("View_scrollbarTrackVertical").getInt(null);
-            internalStyleableView_scrollbars = internalStyleable.getDeclaredField("View_scrollbars").getInt(null);
-
-            // Consider extraction successful if we made it this far
-            internalStyleableViewExtracted = true;
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        }
-
-        // If extraction was successful
-        if (internalStyleableViewExtracted) {
-            // Get styled attributes for View
-            TypedArray styledAttrsView = getContext().getTheme().obtainStyledAttributes(attrs, internalStyleableView, defStyleAttr, defStyleRes);
-
-            /* Redirect to scrollbar lens any attributes pertaining to scrollbars */
-
-            boolean fadeScrollbars = styledAttrsView.getBoolean(internalStyleableView_fadeScrollbars, scrollbarLens.isScrollbarFadingEnabled());
-            int scrollbarStyle = styledAttrsView.getInteger(internalStyleableView_scrollbarStyle, scrollbarLens.getScrollBarStyle());
-            int scrollbars = styledAttrsView.getInteger(internalStyleableView_scrollbars, (scrollbarLens.isHorizontalScrollBarEnabled() ? 0x00000100 : 0) | (scrollbarLens.isVerticalScrollBarEnabled() ? 0x00000200 : 0));
-
-            setScrollbarFadingEnabled(fadeScrollbars);
-            // noinspection WrongConstant
-            setScrollBarStyle(scrollbarStyle);
-            setHorizontalScrollBarEnabled((scrollbars & 0x00000100) > 0);
-            setVerticalScrollBarEnabled((scrollbars & 0x00000200) > 0);
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                int scrollbarDefaultDelayBeforeFade = styledAttrsView.getInteger(internalStyleableView_scrollbarDefaultDelayBeforeFade, scrollbarLens.getScrollBarDefaultDelayBeforeFade());
-                int scrollbarFadeDuration = styledAttrsView.getInteger(internalStyleableView_scrollbarFadeDuration, scrollbarLens.getScrollBarFadeDuration());
-                int scrollbarSize = styledAttrsView.getDimensionPixelSize(internalStyleableView_scrollbarSize, scrollbarLens.getScrollBarSize());
-
-                setScrollBarDefaultDelayBeforeFade(scrollbarDefaultDelayBeforeFade);
-                setScrollBarFadeDuration(scrollbarFadeDuration);
-                setScrollBarSize(scrollbarSize);
-            }
-
-            // Recycle styled attributes for View
-            styledAttrsView.recycle();
+        panContainer = new PanContainer(getContext());
+    }
+
+    private void handleAttrs(AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        // Attribute table for View, resolved once per process
+        ViewStyleable viewStyleable = ViewStyleable.get();
+
+        // Get styled attributes for View
+        TypedArray styledAttrsView = getContext().getTheme().obtainStyledAttributes(attrs, viewStyleable.attrs, defStyleAttr, defStyleRes);
+
+        /* Redirect to scrollbar renderer any attributes pertaining to scrollbars */
+
+        boolean fadeScrollbars = styledAttrsView.getBoolean(viewStyleable.fadeScrollbars, scrollbarRenderer.isFadingEnabled());
+        int scrollbarStyle = styledAttrsView.getInteger(viewStyleable.scrollbarStyle, scrollbarRenderer.getStyle());
+        int scrollbars = styledAttrsView.getInteger(viewStyleable.scrollbars, (scrollbarRenderer.isHorizontalEnabled() ? 0x00000100 : 0) | (scrollbarRenderer.isVerticalEnabled() ? 0x00000200 : 0));
+        int scrollbarDefaultDelayBeforeFade = styledAttrsView.getInteger(viewStyleable.scrollbarDefaultDelayBeforeFade, scrollbarRenderer.getDefaultDelayBeforeFade());
+        int scrollbarFadeDuration = styledAttrsView.getInteger(viewStyleable.scrollbarFadeDuration, scrollbarRenderer.getFadeDuration());
+        int scrollbarSize = styledAttrsView.getDimensionPixelSize(viewStyleable.scrollbarSize, scrollbarRenderer.getSize());
+
+        setScrollbarFadingEnabled(fadeScrollbars);
+        // noinspection WrongConstant
+        setScrollBarStyle(scrollbarStyle);
+        setHorizontalScrollBarEnabled((scrollbars & 0x00000100) > 0);
+        setVerticalScrollBarEnabled((scrollbars & 0x00000200) > 0);
+        setScrollBarDefaultDelayBeforeFade(scrollbarDefaultDelayBeforeFade);
+        setScrollBarFadeDuration(scrollbarFadeDuration);
+        setScrollBarSize(scrollbarSize);
+
+        // Scrollbar drawables only replace the theme's if given
+        if (styledAttrsView.hasValue(viewStyleable.scrollbarThumbHorizontal)) {
+            scrollbarRenderer.setHorizontalThumbDrawable(styledAttrsView.getDrawable(viewStyleable.scrollbarThumbHorizontal));
+        }
+        if (styledAttrsView.hasValue(viewStyleable.scrollbarThumbVertical)) {
+            scrollbarRenderer.setVerticalThumbDrawable(styledAttrsView.getDrawable(viewStyleable.scrollbarThumbVertical));
+        }
+        if (styledAttrsView.hasValue(viewStyleable.scrollbarTrackHorizontal)) {
+            scrollbarRenderer.setHorizontalTrackDrawable(styledAttrsView.getDrawable(viewStyleable.scrollbarTrackHorizontal));
         }
+        if (styledAttrsView.hasValue(viewStyleable.scrollbarTrackVertical)) {
+            scrollbarRenderer.setVerticalTrackDrawable(styledAttrsView.getDrawable(viewStyleable.scrollbarTrackVertical));
+        }
+
+        // Recycle styled attributes for View
+        styledAttrsView.recycle();
 
         // Get styled attributes for PanView
         TypedArray styledAttrsPanView = getContext().getTheme().obtainStyledAttributes(attrs, R.styleable.PanView, defStyleAttr, defStyleRes);
@@ -390,91 +766,111 @@ public class PanView extends FrameLayout {
         fillViewportWidth = styledAttrsPanView.getBoolean(R.styleable.PanView_fillViewportWidth, fillViewportWidth);
 
         useNativeSmoothScroll = styledAttrsPanView.getBoolean(R.styleable.PanView_useNativeSmoothScroll, useNativeSmoothScroll);
+        useUnifiedEngine = styledAttrsPanView.getBoolean(R.styleable.PanView_useUnifiedEngine, useUnifiedEngine);
+        lazyEngine = styledAttrsPanView.getBoolean(R.styleable.PanView_lazyEngine, lazyEngine);
+
+        coalescePanChanges = styledAttrsPanView.getBoolean(R.styleable.PanView_coalescePanChanges, coalescePanChanges);
+
+        tileCacheEnabled = styledAttrsPanView.getBoolean(R.styleable.PanView_tileCacheEnabled, tileCacheEnabled);
+        tileCacheTileSize = styledAttrsPanView.getDimensionPixelSize(R.styleable.PanView_tileCacheTileSize, tileCacheTileSize);
+        tileCacheMaxSize = styledAttrsPanView.getInteger(R.styleable.PanView_tileCacheMaxSize, tileCacheMaxSize);
+        snapshotWhilePanning = styledAttrsPanView.getBoolean(R.styleable.PanView_snapshotWhilePanning, snapshotWhilePanning);
+
+        metricsEnabled = styledAttrsPanView.getBoolean(R.styleable.PanView_metricsEnabled, metricsEnabled);
+
+        axisLockEnabled = styledAttrsPanView.getBoolean(R.styleable.PanView_axisLockEnabled, axisLockEnabled);
+        axisLock.setAngle(styledAttrsPanView.getFloat(R.styleable.PanView_axisLockAngle, axisLock.getAngle()));
+        axisLock.setDuration(styledAttrsPanView.getInteger(R.styleable.PanView_axisLockDuration, axisLock.getDuration()));
+
+        zoomEnabled = styledAttrsPanView.getBoolean(R.styleable.PanView_zoomEnabled, zoomEnabled);
+        minZoom = styledAttrsPanView.getFloat(R.styleable.PanView_minZoom, minZoom);
+        maxZoom = styledAttrsPanView.getFloat(R.styleable.PanView_maxZoom, maxZoom);
 
         // Recycle styled attributes for PanView
         styledAttrsPanView.recycle();
     }
 
     private void configure() {
-        // Fill viewport for each axis
-        scrollViewX.setFillViewport(fillViewportWidth);
-        scrollViewY.setFillViewport(fillViewportHeight);
+        // Both engines read the fill flags during their own content measure pass (if they exist yet)
+        if (scrollViewY != null) {
+            scrollViewY.requestLayout();
+        }
+        if (panContainer != null) {
+            panContainer.requestLayout();
+        }
+
+        // Hosting the child directly may no longer do
+        requestLayout();
     }
 
     @Override
     public boolean isScrollbarFadingEnabled() {
-        return scrollbarLens.isScrollbarFadingEnabled();
+        return scrollbarRenderer.isFadingEnabled();
     }
 
     @Override
     public void setScrollbarFadingEnabled(boolean fadeScrollbars) {
-        scrollbarLens.setScrollbarFadingEnabled(fadeScrollbars);
+        scrollbarRenderer.setFadingEnabled(fadeScrollbars);
     }
 
     @Override
     public int getScrollBarStyle() {
-        return scrollbarLens.getScrollBarStyle();
+        return scrollbarRenderer.getStyle();
     }
 
     @Override
     public void setScrollBarStyle(int style) {
-        scrollbarLens.setScrollBarStyle(style);
+        scrollbarRenderer.setStyle(style);
     }
 
     @Override
     public boolean isHorizontalScrollBarEnabled() {
-        return scrollbarLens.isHorizontalScrollBarEnabled();
+        return scrollbarRenderer.isHorizontalEnabled();
     }
 
     @Override
     public void setHorizontalScrollBarEnabled(boolean horizontalScrollBarEnabled) {
-        scrollbarLens.setHorizontalScrollBarEnabled(horizontalScrollBarEnabled);
+        scrollbarRenderer.setHorizontalEnabled(horizontalScrollBarEnabled);
     }
 
     @Override
     public boolean isVerticalScrollBarEnabled() {
-        return scrollbarLens.isVerticalScrollBarEnabled();
+        return scrollbarRenderer.isVerticalEnabled();
     }
 
     @Override
     public void setVerticalScrollBarEnabled(boolean verticalScrollBarEnabled) {
-        scrollbarLens.setVerticalScrollBarEnabled(verticalScrollBarEnabled);
+        scrollbarRenderer.setVerticalEnabled(verticalScrollBarEnabled);
     }
 
     @Override
-    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
     public int getScrollBarDefaultDelayBeforeFade() {
-        return scrollbarLens.getScrollBarDefaultDelayBeforeFade();
+        return scrollbarRenderer.getDefaultDelayBeforeFade();
     }
 
     @Override
-    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
     public void setScrollBarDefaultDelayBeforeFade(int scrollBarDefaultDelayBeforeFade) {
-        scrollbarLens.setScrollBarDefaultDelayBeforeFade(scrollBarDefaultDelayBeforeFade);
+        scrollbarRenderer.setDefaultDelayBeforeFade(scrollBarDefaultDelayBeforeFade);
     }
 
     @Override
-    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
     public int getScrollBarFadeDuration() {
-        return scrollbarLens.getScrollBarFadeDuration();
+        return scrollbarRenderer.getFadeDuration();
     }
 
     @Override
-    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
     public void setScrollBarFadeDuration(int scrollBarFadeDuration) {
-        scrollbarLens.setScrollBarFadeDuration(scrollBarFadeDuration);
+        scrollbarRenderer.setFadeDuration(scrollBarFadeDuration);
     }
 
     @Override
-    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
     public int getScrollBarSize() {
-        return scrollbarLens.getScrollBarSize();
+        return scrollbarRenderer.getSize();
     }
 
     @Override
-    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
     public void setScrollBarSize(int scrollBarSize) {
-        scrollbarLens.setScrollBarSize(scrollBarSize);
+        scrollbarRenderer.setSize(scrollBarSize);
     }
 
     public boolean isFillViewportWidth() {
@@ -504,301 +900,2733 @@ public class PanView extends FrameLayout {
         configure();
     }
 
-    public int getPanX() {
-        return scrollViewX.getScrollX();
+    public boolean isUseUnifiedEngine() {
+        return useUnifiedEngine;
     }
 
-    public void setPanX(int panX) {
-        scrollViewX.scrollTo(panX, scrollViewX.getScrollY());
-    }
+    public void setUseUnifiedEngine(boolean useUnifiedEngine) {
+        // Ignore if unchanged
+        if (useUnifiedEngine == this.useUnifiedEngine) {
+            return;
+        }
 
-    public int getPanY() {
-        return scrollViewY.getScrollY();
-    }
+        // Only the unified engine zooms or hosts a virtual canvas
+        if (!useUnifiedEngine) {
+            cancelZoomAnimation();
+            applyZoom(1f, 0f, 0f);
+            endZoom();
 
-    public void setPanY(int panY) {
-        scrollViewY.scrollTo(scrollViewY.getScrollX(), panY);
-    }
+            setVirtualCanvasEnabled(false);
+        }
 
-    public void addOnPanChangedListener(OnPanChangedListener listener) {
-        panChangedListenerList.add(listener);
-    }
+        // Remember pan position across engines
+        int panX = getPanX();
+        int panY = getPanY();
 
-    public void removeOnPanChangedListener(OnPanChangedListener listener) {
-        panChangedListenerList.remove(listener);
-    }
+        // Take the child back from the old engine
+        boolean wasSpliced = spliced;
+        unsplice();
 
-    public void addOnPanStoppedListener(OnPanStoppedListener listener) {
-        panStoppedListenerList.add(listener);
-    }
+        this.useUnifiedEngine = useUnifiedEngine;
+        configure();
 
-    public void removeOnPanStoppedListener(OnPanStoppedListener listener) {
-        panStoppedListenerList.remove(listener);
+        // Hand the child to the new engine
+        if (wasSpliced) {
+            splice();
+            panTo(panX, panY);
+        }
     }
 
-    public HorizontalScrollView getScrollViewX() {
-        return scrollViewX;
+    public boolean isLazyEngine() {
+        return lazyEngine;
     }
 
-    public ScrollView getScrollViewY() {
-        return scrollViewY;
-    }
+    public void setLazyEngine(boolean lazyEngine) {
+        this.lazyEngine = lazyEngine;
+
+        // Eager engines are spliced in as soon as there is a window
+        if (!lazyEngine && attached) {
+            splice();
+        }
 
-    public ScrollbarLens getScrollbarLens() {
-        return scrollbarLens;
+        configure();
     }
 
-    public void panTo(int x, int y) {
-        scrollViewX.scrollTo(x, scrollViewX.getScrollY());
-        scrollViewY.scrollTo(scrollViewY.getScrollX(), y);
+    public boolean isCoalescePanChanges() {
+        return coalescePanChanges;
     }
 
-    @TargetApi(Build.VERSION_CODES.HONEYCOMB)
-    public void smoothPanTo(int x, int y) {
-        // If we should use native smooth scrolling (or need to)
-        if (useNativeSmoothScroll || Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-            // Scroll natively
-            scrollViewX.smoothScrollTo(x, scrollViewX.getScrollY());
-            scrollViewY.smoothScrollTo(scrollViewY.getScrollX(), y);
-        } else {
-            // Use object animators for optional nicer scrolling
-            ObjectAnimator animScrollX = ObjectAnimator.ofInt(scrollViewX, "scrollX", x);
-            ObjectAnimator animScrollY = ObjectAnimator.ofInt(scrollViewY, "scrollY", y);
+    public void setCoalescePanChanges(boolean coalescePanChanges) {
+        this.coalescePanChanges = coalescePanChanges;
 
-            // Use support library fast-out-slow-in interpolator (should be default, but configurable)
-            animScrollX.setInterpolator(new FastOutSlowInInterpolator());
-            animScrollY.setInterpolator(new FastOutSlowInInterpolator());
+        // Do not strand a pending change
+        if (!coalescePanChanges) {
+            flushPanChanged();
+        }
+    }
 
-            // Use predefined "medium" animation time (should be default, but configurable)
-            int duration = getResources().getInteger(android.R.integer.config_mediumAnimTime);
-            animScrollX.setDuration(duration);
-            animScrollY.setDuration(duration);
+    public int getPanX() {
+        // Content hosted directly never pans
+        if (!spliced) {
+            return 0;
+        }
 
-            // Start smooth scroll
-            animScrollX.start();
-            animScrollY.start();
+        if (useUnifiedEngine) {
+            return panContainer.getScrollX();
         }
-    }
 
-    public void panBy(int dx, int dy) {
-        scrollViewX.scrollBy(dx, 0);
-        scrollViewY.scrollBy(0, dy);
+        return scrollViewX.getScrollX();
     }
 
-    public void smoothPanBy(int dx, int dy) {
-        // If we should use native smooth scrolling
-        if (useNativeSmoothScroll) {
-            // Scroll natively
-            scrollViewX.smoothScrollBy(dx, 0);
-            scrollViewY.smoothScrollBy(0, dy);
-        } else {
-            // Scroll smoothly to final position
-            smoothPanTo(scrollViewX.getScrollX() + dx, scrollViewY.getScrollY() + dy);
+    public void setPanX(int panX) {
+        // Held for the batch
+        if (panBatchDepth > 0) {
+            panBatchX = panX;
+            return;
         }
-    }
 
-    public void fling(int velocityX, int velocityY) {
-        scrollViewX.fling(velocityX);
-        scrollViewY.fling(velocityY);
+        applyPan(panX, getPanY());
     }
 
-    @Override
-    public void addView(View child) {
+    public int getPanY() {
+        // Content hosted directly never pans
+        if (!spliced) {
+            return 0;
+        }
+
+        if (useUnifiedEngine) {
+            return panContainer.getScrollY();
+        }
+
+        return scrollViewY.getScrollY();
+    }
+
+    public void setPanY(int panY) {
+        // Held for the batch
+        if (panBatchDepth > 0) {
+            panBatchY = panY;
+            return;
+        }
+
+        applyPan(getPanX(), panY);
+    }
+
+    public void beginPanBatch() {
+        // The outermost batch starts from the current pan
+        if (panBatchDepth == 0) {
+            panBatchX = getPanX();
+            panBatchY = getPanY();
+        }
+
+        panBatchDepth++;
+    }
+
+    public void commitPanBatch() {
+        if (panBatchDepth == 0) {
+            throw new IllegalStateException("No pan batch to commit");
+        }
+
+        // Nested batches apply with the outermost one
+        if (--panBatchDepth > 0) {
+            return;
+        }
+
+        // Everything lands at once, with one pan change
+        applyPan(panBatchX, panBatchY);
+    }
+
+    public boolean isInPanBatch() {
+        return panBatchDepth > 0;
+    }
+
+    public void prepareForReuse() {
+        // Forget whoever was listening for the previous binding, so nothing below reaches them
+        panChangedListenerList.clear();
+        panStoppedListenerList.clear();
+        panStateChangedListenerList.clear();
+        visibleContentChangedListenerList.clear();
+        virtualPanChangedListenerList.clear();
+        panMetricsListenerList.clear();
+        listenerOverBudgetListenerList.clear();
+
+        // Stop anything still moving
+        stopPanAnimation();
+        cancelZoomAnimation();
+        if (panContainer != null) {
+            panContainer.abortScroll();
+        }
+        if (scrollViewX != null) {
+            abortNestedFlings();
+        }
+
+        // Forget any half-finished gesture or batch
+        panBatchDepth = 0;
+        touchActive = false;
+        contentTouchTarget = false;
+        axisLockLanded = false;
+
+        // Back to the top left, unzoomed (configuration is kept, as the engine is)
+        applyZoom(1f, 0f, 0f);
+        endZoom();
+        if (virtualCanvasEnabled) {
+            virtualAxisX.reset();
+            virtualAxisY.reset();
+            notifyVirtualOriginChanged();
+
+            applyVirtualPan(0, 0);
+        } else {
+            applyPan(0, 0);
+        }
+
+        // The reset is not a pan, so drop the work it queued along with that of the previous binding
+        removeCallbacks(panChangeDispatchRunnable);
+        panChangeDispatchScheduled = false;
+        panChangePending = false;
+        removeCallbacks(settleCheckRunnable);
+        settleCheckScheduled = false;
+        setPanState(PAN_STATE_IDLE);
+
+        // Later changes are reported from here
+        reportedPanX = getPanX();
+        reportedPanY = getPanY();
+        reportedVirtualPanX = getVirtualPanX();
+        reportedVirtualPanY = getVirtualPanY();
+
+        // Tiles and metrics belong to the previous binding too
+        invalidateTileCache();
+        panMetrics.reset();
+        scrollbarRenderer.cancelFade();
+    }
+
+    public boolean isVirtualCanvasEnabled() {
+        return virtualCanvasEnabled;
+    }
+
+    public void setVirtualCanvasEnabled(boolean virtualCanvasEnabled) {
+        // Ignore if unchanged
+        if (virtualCanvasEnabled == this.virtualCanvasEnabled) {
+            return;
+        }
+
+        // Only the unified engine's scroller can be moved along with the window
+        if (virtualCanvasEnabled && !useUnifiedEngine) {
+            throw new IllegalStateException("Virtual canvas requires the unified engine");
+        }
+
+        // The window is in unzoomed pixels
+        if (virtualCanvasEnabled) {
+            cancelZoomAnimation();
+            applyZoom(1f, 0f, 0f);
+            endZoom();
+        }
+
+        // A virtual canvas always pans through the engine
+        createUnifiedEngine();
+
+        // Scroller positions mean something else on the other side
+        stopPanAnimation();
+        panContainer.abortScroll();
+
+        this.virtualCanvasEnabled = virtualCanvasEnabled;
+
+        // Either way the window starts at the logical origin
+        virtualAxisX.reset();
+        virtualAxisY.reset();
+        notifyVirtualOriginChanged();
+
+        panContainer.requestLayout();
+        requestLayout();
+    }
+
+    public long getVirtualContentWidth() {
+        return virtualAxisX.getContentSize();
+    }
+
+    public long getVirtualContentHeight() {
+        return virtualAxisY.getContentSize();
+    }
+
+    public void setVirtualContentSize(long width, long height) {
+        // Keep the logical pan across the change, clamped to the new bounds
+        long panX = getVirtualPanX();
+        long panY = getVirtualPanY();
+
+        virtualAxisX.setContentSize(width);
+        virtualAxisY.setContentSize(height);
+
+        if (virtualCanvasEnabled) {
+            applyVirtualPan(panX, panY);
+            panContainer.requestLayout();
+        }
+    }
+
+    public long getVirtualPanX() {
+        if (virtualCanvasEnabled) {
+            return virtualAxisX.getOrigin() + getPanX();
+        }
+
+        return getPanX();
+    }
+
+    public long getVirtualPanY() {
+        if (virtualCanvasEnabled) {
+            return virtualAxisY.getOrigin() + getPanY();
+        }
+
+        return getPanY();
+    }
+
+    public long getVirtualOriginX() {
+        return virtualCanvasEnabled ? virtualAxisX.getOrigin() : 0;
+    }
+
+    public long getVirtualOriginY() {
+        return virtualCanvasEnabled ? virtualAxisY.getOrigin() : 0;
+    }
+
+    public void virtualPanTo(long x, long y) {
+        // Without a virtual canvas, logical and real pans are one and the same
+        if (!virtualCanvasEnabled) {
+            panTo(clampToInt(x), clampToInt(y));
+            return;
+        }
+
+        applyVirtualPan(x, y);
+    }
+
+    public void virtualPanBy(long dx, long dy) {
+        virtualPanTo(getVirtualPanX() + dx, getVirtualPanY() + dy);
+    }
+
+    public void smoothVirtualPanTo(long x, long y) {
+        // Without a virtual canvas, logical and real pans are one and the same
+        if (!virtualCanvasEnabled) {
+            smoothPanTo(clampToInt(x), clampToInt(y));
+            return;
+        }
+
+        // No animating out of sight
+        if (suspended) {
+            applyVirtualPan(x, y);
+            return;
+        }
+
+        stopPanAnimation();
+
+        // The scroller runs relative to where it starts, so only the distance has to fit
+        long dx = Math.max(0, Math.min(x, virtualAxisX.getRange())) - getVirtualPanX();
+        long dy = Math.max(0, Math.min(y, virtualAxisY.getRange())) - getVirtualPanY();
+        panContainer.smoothScrollBy(clampToInt(dx), clampToInt(dy));
+    }
+
+    public void addOnVirtualPanChangedListener(OnVirtualPanChangedListener listener) {
+        virtualPanChangedListenerList.add(listener);
+    }
+
+    public void removeOnVirtualPanChangedListener(OnVirtualPanChangedListener listener) {
+        virtualPanChangedListenerList.remove(listener);
+    }
+
+    public void addOnPanChangedListener(OnPanChangedListener listener) {
+        panChangedListenerList.add(listener);
+    }
+
+    public void removeOnPanChangedListener(OnPanChangedListener listener) {
+        panChangedListenerList.remove(listener);
+    }
+
+    public void addOnPanStoppedListener(OnPanStoppedListener listener) {
+        panStoppedListenerList.add(listener);
+    }
+
+    public void removeOnPanStoppedListener(OnPanStoppedListener listener) {
+        panStoppedListenerList.remove(listener);
+    }
+
+    public void addOnPanStateChangedListener(OnPanStateChangedListener listener) {
+        panStateChangedListenerList.add(listener);
+    }
+
+    public void removeOnPanStateChangedListener(OnPanStateChangedListener listener) {
+        panStateChangedListenerList.remove(listener);
+    }
+
+    public void addOnVisibleContentChangedListener(OnVisibleContentChangedListener listener) {
+        visibleContentChangedListenerList.add(listener);
+    }
+
+    public void removeOnVisibleContentChangedListener(OnVisibleContentChangedListener listener) {
+        visibleContentChangedListenerList.remove(listener);
+    }
+
+    public void getVisibleContentRect(Rect outRect) {
+        outRect.set(visibleContentRect);
+    }
+
+    public int getPanState() {
+        return panState;
+    }
+
+    public HorizontalScrollView getScrollViewX() {
+        createNestedEngine();
+        return scrollViewX;
+    }
+
+    public ScrollView getScrollViewY() {
+        createNestedEngine();
+        return scrollViewY;
+    }
+
+    public PanContainer getPanContainer() {
+        createUnifiedEngine();
+        return panContainer;
+    }
+
+    public TileProvider getTileProvider() {
+        return tileLayer == null ? null : tileLayer.getTileProvider();
+    }
+
+    public void setTileProvider(TileProvider tileProvider) {
+        // Stop hosting tiles
+        if (tileProvider == null) {
+            if (tileLayer != null) {
+                removeContent();
+                tileLayer = null;
+            }
+
+            return;
+        }
+
+        // Host a tile layer in place of a child (subject to the one child rule)
+        if (tileLayer == null) {
+            tileLayer = new TileLayer(getContext());
+            tileLayer.setTileMargin(tileMargin);
+
+            addView(tileLayer, new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
+        }
+
+        tileLayer.setTileProvider(tileProvider);
+        updateViewport();
+    }
+
+    public int getTileMargin() {
+        return tileMargin;
+    }
+
+    public void setTileMargin(int tileMargin) {
+        this.tileMargin = tileMargin;
+
+        if (tileLayer != null) {
+            tileLayer.setTileMargin(tileMargin);
+        }
+    }
+
+    public boolean isTileCacheEnabled() {
+        return tileCacheEnabled;
+    }
+
+    public void setTileCacheEnabled(boolean tileCacheEnabled) {
+        this.tileCacheEnabled = tileCacheEnabled;
+
+        // Free memory held by the cache (rendered content keeps needing it)
+        if (!tileCacheEnabled && renderedContentView == null && tileCache != null) {
+            tileCache.clear();
+            tileCache = null;
+        }
+
+        invalidateContent();
+    }
+
+    public int getTileCacheTileSize() {
+        return tileCacheTileSize;
+    }
+
+    public void setTileCacheTileSize(int tileCacheTileSize) {
+        this.tileCacheTileSize = tileCacheTileSize;
+
+        // Cached and pending tiles have the old size
+        cancelTileRenders();
+        if (tileCache != null) {
+            tileCache.clear();
+            tileCache = null;
+        }
+
+        invalidateContent();
+    }
+
+    public int getTileCacheMaxSize() {
+        return tileCacheMaxSize;
+    }
+
+    public void setTileCacheMaxSize(int tileCacheMaxSize) {
+        this.tileCacheMaxSize = tileCacheMaxSize;
+
+        if (tileCache != null) {
+            tileCache.setMaxSize(tileCacheMaxSize);
+        }
+    }
+
+    public TileCache getTileCache() {
+        return tileCache;
+    }
+
+    public boolean isSnapshotWhilePanning() {
+        return snapshotWhilePanning;
+    }
+
+    public void setSnapshotWhilePanning(boolean snapshotWhilePanning) {
+        this.snapshotWhilePanning = snapshotWhilePanning;
+
+        // Switch between snapshot and live drawing mid-pan
+        if (!snapshotWhilePanning) {
+            releaseSnapshot();
+            snapshotBitmap = null;
+        }
+
+        invalidateContent();
+    }
+
+    public void invalidateTileCache(Rect dirty) {
+        // Redraw just the dirty area of a snapshot in use
+        if (snapshotValid) {
+            redrawSnapshot(dirty);
+        }
+
+        // Nothing cached yet
+        if (tileCache == null) {
+            invalidateContent();
+            return;
+        }
+
+        // Drop the tiles (at every level) and any renders of them in flight, so only the dirty area is redrawn
+        tileCache.remove(dirty);
+        for (int i = pendingTileRenders.size() - 1; i >= 0; i--) {
+            TileRenderTask task = pendingTileRenders.valueAt(i);
+
+            if (tileCache.intersects(task.level, task.column, task.row, dirty)) {
+                cancelTileRender(task);
+                pendingTileRenders.removeAt(i);
+            }
+        }
+
+        // Queue the dropped tiles again on the next frame
+        clearPlannedTileRange();
+        invalidateContent();
+    }
+
+    public void invalidateTileCache() {
+        // Content changed, so re-render everything on next draw
+        releaseSnapshot();
+        cancelTileRenders();
+        if (tileCache != null) {
+            tileCache.invalidate();
+        }
+
+        invalidateContent();
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+
+        if (metricsEnabled) {
+            updateMetricsFrameInterval();
+
+            // Pick up a pan already under way
+            if (panState != PAN_STATE_IDLE) {
+                scheduleMetricsFrame();
+            }
+        } else {
+            cancelMetricsFrame();
+            panMetrics.onPanStopped();
+        }
+    }
+
+    public long getPanChangedListenerBudgetNanos() {
+        return panChangedListenerBudgetNanos;
+    }
+
+    public void setPanChangedListenerBudgetNanos(long panChangedListenerBudgetNanos) {
+        this.panChangedListenerBudgetNanos = panChangedListenerBudgetNanos;
+    }
+
+    public PanMetrics getMetrics() {
+        return panMetrics;
+    }
+
+    public void addOnPanMetricsListener(OnPanMetricsListener listener) {
+        panMetricsListenerList.add(listener);
+    }
+
+    public void removeOnPanMetricsListener(OnPanMetricsListener listener) {
+        panMetricsListenerList.remove(listener);
+    }
+
+    public void addOnListenerOverBudgetListener(OnListenerOverBudgetListener listener) {
+        listenerOverBudgetListenerList.add(listener);
+    }
+
+    public void removeOnListenerOverBudgetListener(OnListenerOverBudgetListener listener) {
+        listenerOverBudgetListenerList.remove(listener);
+    }
+
+    public int getPredictedFlingCount() {
+        return prefetchPlanner.getFlingCount();
+    }
+
+    public int getPredictedLandingTrackedCount() {
+        return prefetchPlanner.getLandingTrackedCount();
+    }
+
+    public int getPredictedLandingReadyCount() {
+        return prefetchPlanner.getLandingReadyCount();
+    }
+
+    public TileRenderer getTileRenderer() {
+        return renderedContentView == null ? null : renderedContentView.getTileRenderer();
+    }
+
+    public void setTileRenderer(TileRenderer tileRenderer) {
+        // Tiles from the old renderer are worthless
+        cancelTileRenders();
+        if (tileCache != null) {
+            tileCache.invalidate();
+        }
+
+        // Stop hosting rendered content
+        if (tileRenderer == null) {
+            if (renderedContentView != null) {
+                removeContent();
+                renderedContentView = null;
+            }
+
+            return;
+        }
+
+        // Host rendered content in place of a child (subject to the one child rule)
+        if (renderedContentView == null) {
+            renderedContentView = new RenderedContentView(getContext());
+
+            addView(renderedContentView, new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT));
+        }
+
+        renderedContentView.setTileRenderer(tileRenderer);
+        invalidateContent();
+    }
+
+    public int getTilePlaceholderColor() {
+        return tilePlaceholderPaint.getColor();
+    }
+
+    public void setTilePlaceholderColor(int tilePlaceholderColor) {
+        tilePlaceholderPaint.setColor(tilePlaceholderColor);
+        invalidateContent();
+    }
+
+    public void notifyTilesChanged() {
+        if (tileLayer != null) {
+            tileLayer.notifyTilesChanged();
+        }
+    }
+
+    public void panTo(int x, int y) {
+        // Held for the batch
+        if (panBatchDepth > 0) {
+            panBatchX = x;
+            panBatchY = y;
+            return;
+        }
+
+        // Both axes at once, with one pan change
+        applyPan(x, y);
+    }
+
+    public void smoothPanTo(int x, int y) {
+        // Content hosted directly has nowhere to go
+        if (!spliced) {
+            return;
+        }
+
+        // No animating out of sight
+        if (suspended) {
+            panTo(x, y);
+            return;
+        }
+
+        // If we should use native smooth scrolling (a virtual canvas always does, as its window moves under the animator)
+        if (useNativeSmoothScroll || virtualCanvasEnabled) {
+            stopPanAnimation();
+
+            // Scroll natively
+            if (useUnifiedEngine) {
+                panContainer.smoothScrollTo(x, y);
+            } else {
+                scrollViewX.smoothScrollTo(x, scrollViewX.getScrollY());
+                scrollViewY.smoothScrollTo(scrollViewY.getScrollX(), y);
+            }
+        } else {
+            // Head for the new target, from mid-flight if already animating
+            boolean running = panAnimator.isRunning();
+            panAnimator.start(getPanX(), getPanY(), x, y, AnimationUtils.currentAnimationTimeMillis());
+
+            if (!running) {
+                ViewCompat.postOnAnimation(this, panAnimationRunnable);
+            }
+        }
+    }
+
+    public int getSmoothPanDuration() {
+        return panAnimator.getDuration();
+    }
+
+    public void setSmoothPanDuration(int smoothPanDuration) {
+        panAnimator.setDuration(smoothPanDuration);
+    }
+
+    public Interpolator getSmoothPanInterpolator() {
+        return panAnimator.getInterpolator();
+    }
+
+    public void setSmoothPanInterpolator(Interpolator smoothPanInterpolator) {
+        panAnimator.setInterpolator(smoothPanInterpolator);
+    }
+
+    public void panBy(int dx, int dy) {
+        // Held for the batch
+        if (panBatchDepth > 0) {
+            panBatchX += dx;
+            panBatchY += dy;
+            return;
+        }
+
+        // Both axes at once, with one pan change
+        applyPan(getPanX() + dx, getPanY() + dy);
+    }
+
+    public void smoothPanBy(int dx, int dy) {
+        // Content hosted directly has nowhere to go
+        if (!spliced) {
+            return;
+        }
+
+        // No animating out of sight
+        if (suspended) {
+            panBy(dx, dy);
+            return;
+        }
+
+        // If we should use native smooth scrolling (a virtual canvas always does, as its window moves under the animator)
+        if (useNativeSmoothScroll || virtualCanvasEnabled) {
+            // Scroll natively
+            if (useUnifiedEngine) {
+                panContainer.smoothScrollBy(dx, dy);
+            } else {
+                scrollViewX.smoothScrollBy(dx, 0);
+                scrollViewY.smoothScrollBy(0, dy);
+            }
+        } else if (panAnimator.isRunning()) {
+            // Add to the target already being headed for
+            smoothPanTo(panAnimator.getTargetX() + dx, panAnimator.getTargetY() + dy);
+        } else {
+            // Scroll smoothly to final position
+            smoothPanTo(getPanX() + dx, getPanY() + dy);
+        }
+    }
+
+    public void fling(int velocityX, int velocityY) {
+        // Content hosted directly has nowhere to go, and nothing flings out of sight
+        if (!spliced || suspended) {
+            return;
+        }
+
+        // The unified engine flings both axes along one trajectory
+        if (useUnifiedEngine) {
+            panContainer.fling(velocityX, velocityY);
+            return;
+        }
+
+        scrollViewX.fling(velocityX);
+        scrollViewY.fling(velocityY);
+    }
+
+    public boolean isAxisLockEnabled() {
+        return axisLockEnabled;
+    }
+
+    public void setAxisLockEnabled(boolean axisLockEnabled) {
+        this.axisLockEnabled = axisLockEnabled;
+    }
+
+    public float getAxisLockAngle() {
+        return axisLock.getAngle();
+    }
+
+    public void setAxisLockAngle(float axisLockAngle) {
+        axisLock.setAngle(axisLockAngle);
+    }
+
+    public int getAxisLockDuration() {
+        return axisLock.getDuration();
+    }
+
+    public void setAxisLockDuration(int axisLockDuration) {
+        axisLock.setDuration(axisLockDuration);
+    }
+
+    public boolean isZoomEnabled() {
+        return zoomEnabled;
+    }
+
+    public void setZoomEnabled(boolean zoomEnabled) {
+        this.zoomEnabled = zoomEnabled;
+
+        // Pinches go through the engine, so bring it in
+        if (zoomEnabled && lazyEngine) {
+            requestLayout();
+        }
+    }
+
+    public float getMinZoom() {
+        return minZoom;
+    }
+
+    public void setMinZoom(float minZoom) {
+        this.minZoom = minZoom;
+
+        // Bring current zoom into range
+        if (zoom < minZoom) {
+            setZoom(minZoom);
+        }
+    }
+
+    public float getMaxZoom() {
+        return maxZoom;
+    }
+
+    public void setMaxZoom(float maxZoom) {
+        this.maxZoom = maxZoom;
+
+        // Bring current zoom into range
+        if (zoom > maxZoom) {
+            setZoom(maxZoom);
+        }
+    }
+
+    public float getZoom() {
+        return zoom;
+    }
+
+    public void setZoom(float zoom) {
+        // Zoom about the middle of the viewport
+        zoomTo(zoom, getWidth() / 2f, getHeight() / 2f);
+    }
+
+    public boolean isZooming() {
+        return zooming;
+    }
+
+    public void zoomTo(float zoom, float focusX, float focusY) {
+        // Nested scroll views know nothing of scale
+        if (!useUnifiedEngine && zoom != 1f) {
+            throw new IllegalStateException("Zoom requires the unified engine");
+        }
+
+        // Nor does the virtual canvas window
+        if (virtualCanvasEnabled && zoom != 1f) {
+            throw new IllegalStateException("Zoom is not available on a virtual canvas");
+        }
+
+        cancelZoomAnimation();
+        applyZoom(zoom, focusX, focusY);
+
+        // Programmatic zoom settles immediately
+        if (!zooming) {
+            updateLevelOfDetail();
+        }
+    }
+
+    public void smoothZoomTo(float zoom, float focusX, float focusY) {
+        // Nested scroll views know nothing of scale
+        if (!useUnifiedEngine && zoom != 1f) {
+            throw new IllegalStateException("Zoom requires the unified engine");
+        }
+
+        // Nor does the virtual canvas window
+        if (virtualCanvasEnabled && zoom != 1f) {
+            throw new IllegalStateException("Zoom is not available on a virtual canvas");
+        }
+
+        // No animating out of sight
+        if (suspended) {
+            zoomTo(zoom, focusX, focusY);
+            return;
+        }
+
+        // Coarse levels while animating, refined at the end
+        cancelZoomAnimation();
+        beginZoom();
+
+        zoomAnimationStartTime = AnimationUtils.currentAnimationTimeMillis();
+        zoomAnimationDuration = getResources().getInteger(android.R.integer.config_shortAnimTime);
+        zoomAnimationFrom = this.zoom;
+        zoomAnimationTo = Math.max(minZoom, Math.min(maxZoom, zoom));
+        zoomAnimationFocusX = focusX;
+        zoomAnimationFocusY = focusY;
+        zoomAnimationRunning = true;
+
+        ViewCompat.postOnAnimation(this, zoomAnimationRunnable);
+    }
+
+    @Override
+    public void addView(View child) {
+        // Current child count
+        int count;
+
+        // Get child count
+        if (spliced) {
+            count = getContentHost().getChildCount();
+        } else {
+            count = getChildCount();
+        }
+
+        // Enforce one child
+        if (count != 0) {
+            throw new IllegalStateException("PanView can only host one direct child");
+        }
+
+        // Add view to appropriate parent
+        if (spliced) {
+            getContentHost().addView(child);
+        } else {
+            super.addView(child);
+        }
+    }
+
+    @Override
+    public void addView(View child, int index) {
         // Current child count
         int count;
 
-        // Get child count
-        if (spliced) {
-            count = scrollViewY.getChildCount();
-        } else {
-            count = getChildCount();
+        // Get child count
+        if (spliced) {
+            count = getContentHost().getChildCount();
+        } else {
+            count = getChildCount();
+        }
+
+        // Enforce one child
+        if (count != 0) {
+            throw new IllegalStateException("PanView can only host one direct child");
+        }
+
+        // Add view to appropriate parent
+        if (spliced) {
+            getContentHost().addView(child, index);
+        } else {
+            super.addView(child, index);
+        }
+    }
+
+    @Override
+    public void addView(View child, ViewGroup.LayoutParams layoutParams) {
+        // Current child count
+        int count;
+
+        // Get child count
+        if (spliced) {
+            count = getContentHost().getChildCount();
+        } else {
+            count = getChildCount();
+        }
+
+        // Enforce one child
+        if (count != 0) {
+            throw new IllegalStateException("PanView can only host one direct child");
+        }
+
+        // Add view to appropriate parent
+        if (spliced) {
+            getContentHost().addView(child, layoutParams);
+        } else {
+            super.addView(child, layoutParams);
+        }
+    }
+
+    @Override
+    public void addView(View child, int index, ViewGroup.LayoutParams layoutParams) {
+        // Current child count
+        int count;
+
+        // Get child count
+        if (spliced) {
+            count = getContentHost().getChildCount();
+        } else {
+            count = getChildCount();
+        }
+
+        // Enforce one child
+        if (count != 0) {
+            throw new IllegalStateException("PanView can only host one direct child");
+        }
+
+        // Add view to appropriate parent
+        if (spliced) {
+            getContentHost().addView(child, index, layoutParams);
+        } else {
+            super.addView(child, index, layoutParams);
+        }
+    }
+
+    @Override
+    public void addView(View child, int width, int height) {
+        // Current child count
+        int count;
+
+        // Get child count
+        if (spliced) {
+            count = getContentHost().getChildCount();
+        } else {
+            count = getChildCount();
+        }
+
+        // Enforce one child
+        if (count != 0) {
+            throw new IllegalStateException("PanView can only host one direct child");
+        }
+
+        // Add view to appropriate parent
+        if (spliced) {
+            getContentHost().addView(child, width, height);
+        } else {
+            super.addView(child, width, height);
+        }
+    }
+
+    @Override
+    public void removeView(View view) {
+        // Remove view from wherever it lives, leaving the engine in place for the next child
+        if (spliced) {
+            getContentHost().removeView(view);
+            contentMeasureCache.invalidate();
+        } else {
+            super.removeView(view);
+        }
+    }
+
+    @Override
+    public void removeAllViews() {
+        // Remove child from wherever it lives, leaving the engine in place for the next child
+        if (spliced) {
+            getContentHost().removeAllViews();
+            contentMeasureCache.invalidate();
+        } else {
+            super.removeAllViews();
+        }
+    }
+
+    @Override
+    public boolean awakenScrollBars() {
+        return showScrollbars();
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        // Anything that moved after this frame's callbacks (such as a fling's first step) is still reported before the content draws
+        if (coalescePanChanges && !suspended) {
+            advanceScrollers();
+
+            if (panChangePending) {
+                panChangePending = false;
+                dispatchPanChanged();
+            }
+        }
+
+        super.dispatchDraw(canvas);
+
+        // Scrollbars go over the content
+        scrollbarRenderer.draw(canvas);
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        int action = event.getAction() & MotionEvent.ACTION_MASK;
+
+        // A new gesture catches any settling pan
+        if (action == MotionEvent.ACTION_DOWN) {
+            touchActive = true;
+
+            // The finger takes over from a smooth pan
+            stopPanAnimation();
+
+            if (axisLockEnabled) {
+                axisLock.onDown(event.getX(), event.getY(), event.getEventTime());
+                axisLockLanded = false;
+            }
+
+            if (panState == PAN_STATE_SETTLING) {
+                setPanState(PAN_STATE_DRAGGING);
+            }
+        } else if (action == MotionEvent.ACTION_MOVE && axisLockEnabled) {
+            // Decide the axis as the gesture leaves the slop
+            if (axisLock.onMove(event.getX(), event.getY())) {
+                axisLockLanded = true;
+            }
+        }
+
+        // Note when the finger moved mid-drag, to see how long until the pan shows it
+        if (metricsEnabled && action == MotionEvent.ACTION_MOVE && panState == PAN_STATE_DRAGGING) {
+            panMetrics.onTouchMoved(event.getEventTime() * 1000000L);
+        }
+
+        boolean handled = super.dispatchTouchEvent(event);
+
+        // Touch up hands the pan over to the scrollers
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            touchActive = false;
+
+            if (axisLockEnabled) {
+                axisLock.onUp(event.getEventTime());
+            }
+
+            if (panState == PAN_STATE_DRAGGING) {
+                setPanState(PAN_STATE_SETTLING);
+
+                // Give a fling started by this event one frame to show up
+                panActiveSinceSettleCheck = true;
+                scheduleSettleCheck();
+            }
+        }
+
+        return handled;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Viewport the content resolves match parent against, known before the engine measures it
+        int availableWidth = getViewportSize(widthMeasureSpec, getMeasuredWidth()) - getPaddingLeft() - getPaddingRight();
+        int availableHeight = getViewportSize(heightMeasureSpec, getMeasuredHeight()) - getPaddingTop() - getPaddingBottom();
+
+        // The vertical scroll view gets an unbounded width spec either way, so make it look again
+        if (availableWidth != contentAvailableWidth || availableHeight != contentAvailableHeight) {
+            contentAvailableWidth = availableWidth;
+            contentAvailableHeight = availableHeight;
+
+            if (scrollViewY != null) {
+                scrollViewY.forceLayout();
+            }
+        }
+
+        // Host the child directly until the content needs the engine, which this one measure tells
+        if (lazyEngine && !spliced && !(attached && isEngineRequired())) {
+            boolean overflows = measureDirectContent(widthMeasureSpec, heightMeasureSpec, availableWidth, availableHeight);
+
+            // Fits, or has no window to splice the engine in for yet
+            if (!overflows || !attached) {
+                return;
+            }
+        }
+
+        // Bring in the engine the first time the content needs it
+        if (lazyEngine && attached && !spliced) {
+            splice();
+        }
+
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+
+        // The next layout request needs a fresh measure
+        directMeasureCache.onLayout();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        // Viewport size changed
+        updateViewport();
+        updateScrollbars();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        attached = true;
+
+        // Splice views, unless they can wait until the content needs panning
+        if (!lazyEngine || isEngineRequired()) {
+            splice();
+        }
+
+        // Resume settle checks for any pan that began while detached
+        if (panState == PAN_STATE_SETTLING) {
+            scheduleSettleCheck();
+        }
+
+        // The display may differ from the last window's
+        if (metricsEnabled) {
+            updateMetricsFrameInterval();
+        }
+
+        // Back at work if in sight
+        updateSuspended();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        attached = false;
+
+        // Deliver any pending pan change now rather than on reattach
+        flushPanChanged();
+
+        // Nothing to draw the snapshot into until reattached
+        releaseSnapshot();
+        snapshotBitmap = null;
+
+        // Nothing can keep panning without a window
+        updateSuspended();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+
+        // This view or an ancestor was shown or hidden (ignored while constructing, before any window)
+        if (attached) {
+            updateSuspended();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+
+        // The window went behind another or came back
+        if (attached) {
+            updateSuspended();
+        }
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        // Create a stateful object based on super state
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+
+        // Save pan position
+        savedState.panX = getPanX();
+        savedState.panY = getPanY();
+        savedState.virtualPanX = getVirtualPanX();
+        savedState.virtualPanY = getVirtualPanY();
+
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        // Check if state is ours
+        if (state instanceof SavedState) {
+            SavedState savedState = (SavedState) state;
+
+            // Pass on super state
+            super.onRestoreInstanceState(savedState.getSuperState());
+
+            // Restore pan position (the logical one, on a virtual canvas)
+            if (virtualCanvasEnabled) {
+                virtualPanTo(savedState.virtualPanX, savedState.virtualPanY);
+            } else {
+                setPanX(savedState.panX);
+                setPanY(savedState.panY);
+            }
+        } else {
+            // Not for us, pass it on
+            super.onRestoreInstanceState(state);
+        }
+    }
+
+    private boolean dispatchToContent(MotionEvent event) {
+        // Get child
+        View child = scrollViewY.getChildAt(0);
+
+        // Sanity check
+        if (child == null) {
+            return false;
+        }
+
+        // Map from horizontal scroll view coordinates to child coordinates
+        float offsetX = scrollViewX.getScrollX() - scrollViewY.getLeft() + scrollViewY.getScrollX() - child.getLeft();
+        float offsetY = scrollViewX.getScrollY() - scrollViewY.getTop() + scrollViewY.getScrollY() - child.getTop();
+
+        // Deliver in child coordinates, then put the event back as it was
+        event.offsetLocation(offsetX, offsetY);
+        boolean handled = child.dispatchTouchEvent(event);
+        event.offsetLocation(-offsetX, -offsetY);
+
+        return handled;
+    }
+
+    private static int getViewportSize(int measureSpec, int fallback) {
+        // Without a bound, the last measured size is the best guess
+        if (MeasureSpec.getMode(measureSpec) == MeasureSpec.UNSPECIFIED) {
+            return fallback;
+        }
+
+        return MeasureSpec.getSize(measureSpec);
+    }
+
+    private void measureContent(View child, int availableWidth, int availableHeight) {
+        ViewGroup.LayoutParams layoutParams = child.getLayoutParams();
+
+        // Resolve match parent against the viewport and leave wrap content unbounded
+        int childWidthMeasureSpec = getContentMeasureSpec(layoutParams.width, availableWidth);
+        int childHeightMeasureSpec = getContentMeasureSpec(layoutParams.height, availableHeight);
+
+        child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+
+        // Flag indicating the child must be stretched to fill the viewport
+        boolean stretch = false;
+
+        // If should fill viewport width, but is currently too small
+        if (fillViewportWidth && child.getMeasuredWidth() < availableWidth) {
+            childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(availableWidth, MeasureSpec.EXACTLY);
+            stretch = true;
+        }
+
+        // If should fill viewport height, but is currently too small
+        if (fillViewportHeight && child.getMeasuredHeight() < availableHeight) {
+            childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(availableHeight, MeasureSpec.EXACTLY);
+            stretch = true;
+        }
+
+        if (stretch) {
+            child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+        }
+    }
+
+    private static int getContentMeasureSpec(int dimension, int available) {
+        switch (dimension) {
+        case ViewGroup.LayoutParams.MATCH_PARENT:
+            // Redirect parenthood to the viewport
+            return MeasureSpec.makeMeasureSpec(Math.max(0, available), MeasureSpec.EXACTLY);
+        case ViewGroup.LayoutParams.WRAP_CONTENT:
+            // Content may grow as large as it likes along a pannable axis
+            return MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        default:
+            // Exact size requested
+            return MeasureSpec.makeMeasureSpec(dimension, MeasureSpec.EXACTLY);
+        }
+    }
+
+    private boolean isEngineRequired() {
+        // Zoom and virtual canvases work through the engine, whatever the content size
+        return !lazyEngine || zoomEnabled || zoom != 1f || virtualCanvasEnabled;
+    }
+
+    private boolean measureDirectContent(int widthMeasureSpec, int heightMeasureSpec, int availableWidth, int availableHeight) {
+        // Get child
+        View child = getChildAt(0);
+
+        // Nothing to pan
+        if (child == null || child.getVisibility() == GONE) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return false;
+        }
+
+        MarginLayoutParams layoutParams = (MarginLayoutParams) child.getLayoutParams();
+
+        // Measure as the engine would, unbounded along wrapped axes, and only if something it depends on changed
+        if (!directMeasureCache.isValid(widthMeasureSpec, heightMeasureSpec, availableWidth, availableHeight, fillViewportWidth, fillViewportHeight, child.isLayoutRequested())) {
+            measureContent(child, availableWidth - layoutParams.leftMargin - layoutParams.rightMargin, availableHeight - layoutParams.topMargin - layoutParams.bottomMargin);
+            directMeasureCache.update(widthMeasureSpec, heightMeasureSpec, availableWidth, availableHeight, fillViewportWidth, fillViewportHeight);
+        }
+
+        int contentWidth = layoutParams.leftMargin + child.getMeasuredWidth() + layoutParams.rightMargin;
+        int contentHeight = layoutParams.topMargin + child.getMeasuredHeight() + layoutParams.bottomMargin;
+
+        // Wrap the child, as FrameLayout would
+        int width = Math.max(getPaddingLeft() + contentWidth + getPaddingRight(), getSuggestedMinimumWidth());
+        int height = Math.max(getPaddingTop() + contentHeight + getPaddingBottom(), getSuggestedMinimumHeight());
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+
+        // Overflowing either way needs panning
+        return contentWidth > availableWidth || contentHeight > availableHeight;
+    }
+
+    private static int clampToInt(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(value, Integer.MAX_VALUE));
+    }
+
+    private int getLockedAxis() {
+        return axisLockEnabled ? axisLock.getAxis() : AxisLock.AXIS_NONE;
+    }
+
+    private void notifyPanChanged() {
+        // Reported once the whole move is in
+        if (panChangeDeferred) {
+            return;
+        }
+
+        // Tiles and listeners catch up all at once on resume
+        if (suspended) {
+            panChangeSuspended = true;
+            return;
+        }
+
+        // Tiles must follow every change, coalesced or not
+        updateViewport();
+
+        if (metricsEnabled) {
+            panMetrics.onScrolled();
+        }
+
+        // Deliver immediately unless coalescing into the next frame
+        if (!coalescePanChanges || !attached) {
+            dispatchPanChanged();
+            return;
+        }
+
+        // Collect changes until the next frame's callbacks, or its draw at the latest
+        panChangePending = true;
+        if (!panChangeDispatchScheduled) {
+            ViewCompat.postOnAnimation(this, panChangeDispatchRunnable);
+            panChangeDispatchScheduled = true;
+        }
+    }
+
+    private void applyPan(int x, int y) {
+        // Content hosted directly has nowhere to go
+        if (!spliced) {
+            return;
+        }
+
+        // Scroll both axes before anyone hears about either
+        panChangeDeferred = true;
+        try {
+            if (useUnifiedEngine) {
+                panContainer.scrollTo(x, y);
+            } else {
+                scrollViewX.scrollTo(x, scrollViewX.getScrollY());
+                scrollViewY.scrollTo(scrollViewY.getScrollX(), y);
+            }
+        } finally {
+            panChangeDeferred = false;
+        }
+
+        notifyPanChanged();
+    }
+
+    private void updateSuspended() {
+        boolean suspended = !attached || getWindowVisibility() != VISIBLE || !isShown();
+
+        // Ignore non-changes
+        if (suspended == this.suspended) {
+            return;
+        }
+
+        if (suspended) {
+            suspend();
+        } else {
+            resume();
+        }
+    }
+
+    private void suspend() {
+        suspended = true;
+
+        // Animations land where they were headed rather than stop halfway
+        if (panAnimator.isRunning()) {
+            int x = panAnimator.getTargetX();
+            int y = panAnimator.getTargetY();
+
+            stopPanAnimation();
+            applyPan(x, y);
+        }
+        if (zoomAnimationRunning) {
+            zoomTo(zoomAnimationTo, zoomAnimationFocusX, zoomAnimationFocusY);
+        }
+
+        // Flings stop where they are
+        if (panContainer != null) {
+            panContainer.abortScroll();
+        }
+        if (scrollViewX != null) {
+            abortNestedFlings();
+        }
+
+        // Stop settle checks
+        removeCallbacks(settleCheckRunnable);
+        settleCheckScheduled = false;
+
+        // Hold back a change still waiting for its frame, to go with any made while suspended
+        if (panChangeDispatchScheduled) {
+            removeCallbacks(panChangeDispatchRunnable);
+            panChangeDispatchScheduled = false;
+            panChangePending = false;
+            panChangeSuspended = true;
+        }
+
+        // Drop background tile work
+        cancelTileRenders();
+
+        // No fading or frames out of sight
+        scrollbarRenderer.cancelFade();
+        cancelMetricsFrame();
+
+        // Nothing can keep panning
+        touchActive = false;
+        setPanState(PAN_STATE_IDLE);
+    }
+
+    private void resume() {
+        suspended = false;
+
+        // Report everything that moved while suspended as one change
+        if (panChangeSuspended) {
+            panChangeSuspended = false;
+            notifyPanChanged();
+        }
+    }
+
+    private void stopPanAnimation() {
+        // Nothing animating
+        if (!panAnimator.isRunning()) {
+            return;
+        }
+
+        panAnimator.stop();
+        removeCallbacks(panAnimationRunnable);
+    }
+
+    private void advanceScrollers() {
+        // Nothing to advance
+        if (!spliced) {
+            return;
+        }
+
+        // Scrollers are timed by the frame, so a second step in the same frame goes nowhere
+        if (useUnifiedEngine) {
+            panContainer.computeScroll();
+        } else {
+            scrollViewX.computeScroll();
+            scrollViewY.computeScroll();
+        }
+    }
+
+    private void abortNestedFlings() {
+        // The scrollers are private, so catch them with a touch down as a finger would, then let go
+        MotionEvent event = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 0f, 0f, 0);
+
+        abortingNestedFlings = true;
+        try {
+            scrollViewX.onTouchEvent(event);
+            scrollViewY.onTouchEvent(event);
+
+            event.setAction(MotionEvent.ACTION_CANCEL);
+            scrollViewX.onTouchEvent(event);
+            scrollViewY.onTouchEvent(event);
+        } finally {
+            abortingNestedFlings = false;
+            event.recycle();
+        }
+    }
+
+    private void flushPanChanged() {
+        // Deliver any change still waiting for its frame
+        if (panChangeDispatchScheduled) {
+            removeCallbacks(panChangeDispatchRunnable);
+            panChangeDispatchScheduled = false;
+            panChangePending = false;
+
+            dispatchPanChanged();
+        }
+    }
+
+    private void dispatchPanChanged() {
+        // Logical pan first, which rebasing alone leaves where it was
+        if (virtualCanvasEnabled) {
+            dispatchVirtualPanChanged();
+        }
+
+        // Read both axes together so listeners always see a consistent position
+        int panX = getPanX();
+        int panY = getPanY();
+
+        // Nothing moved since the last report
+        if (panX == reportedPanX && panY == reportedPanY) {
+            return;
+        }
+
+        int oldPanX = reportedPanX;
+        int oldPanY = reportedPanY;
+
+        reportedPanX = panX;
+        reportedPanY = panY;
+
+        // Notify listener(s) from a snapshot, so nothing is allocated and listeners may remove themselves
+        Object[] listeners = panChangedListenerList.snapshot();
+
+        // Untimed unless metrics are wanted
+        if (!metricsEnabled) {
+            for (int i = 0; i < listeners.length; i++) {
+                ((OnPanChangedListener) listeners[i]).onPanChanged(panX, panY, oldPanX, oldPanY);
+            }
+
+            return;
+        }
+
+        for (int i = 0; i < listeners.length; i++) {
+            OnPanChangedListener listener = (OnPanChangedListener) listeners[i];
+
+            long startTime = System.nanoTime();
+            listener.onPanChanged(panX, panY, oldPanX, oldPanY);
+            long elapsed = System.nanoTime() - startTime;
+
+            // Flag listeners that take more than their share of the frame
+            if (panMetrics.onListenerDispatched(elapsed, panChangedListenerBudgetNanos)) {
+                Object[] overBudgetListeners = listenerOverBudgetListenerList.snapshot();
+                for (int j = 0; j < overBudgetListeners.length; j++) {
+                    ((OnListenerOverBudgetListener) overBudgetListeners[j]).onListenerOverBudget(listener, elapsed);
+                }
+            }
+        }
+    }
+
+    private void dispatchVirtualPanChanged() {
+        long panX = getVirtualPanX();
+        long panY = getVirtualPanY();
+
+        // Nothing moved since the last report
+        if (panX == reportedVirtualPanX && panY == reportedVirtualPanY) {
+            return;
+        }
+
+        long oldPanX = reportedVirtualPanX;
+        long oldPanY = reportedVirtualPanY;
+
+        reportedVirtualPanX = panX;
+        reportedVirtualPanY = panY;
+
+        // Notify listener(s)
+        Object[] listeners = virtualPanChangedListenerList.snapshot();
+        for (int i = 0; i < listeners.length; i++) {
+            ((OnVirtualPanChangedListener) listeners[i]).onVirtualPanChanged(panX, panY, oldPanX, oldPanY);
+        }
+    }
+
+    private void applyVirtualPan(long x, long y) {
+        long originX = virtualAxisX.getOrigin();
+        long originY = virtualAxisY.getOrigin();
+
+        // Where the window has to be for this pan, and the real scroll within it
+        int scrollX = virtualAxisX.place(x);
+        int scrollY = virtualAxisY.place(y);
+
+        // Scroll both axes before anyone hears about either
+        boolean deferred = panChangeDeferred;
+        panChangeDeferred = true;
+        try {
+            panContainer.scrollTo(scrollX, scrollY);
+        } finally {
+            panChangeDeferred = deferred;
+        }
+
+        // Content redraws about the new origin before listeners hear of the pan
+        if (virtualAxisX.getOrigin() != originX || virtualAxisY.getOrigin() != originY) {
+            onVirtualOriginMoved();
+        }
+
+        notifyPanChanged();
+    }
+
+    private void rebaseVirtualCanvas() {
+        // Recentre the window if the real scroll strayed from the middle, keeping the logical pan
+        long shiftX = virtualAxisX.rebase(panContainer.getScrollX());
+        long shiftY = virtualAxisY.rebase(panContainer.getScrollY());
+
+        // Still within the middle band
+        if (shiftX == 0 && shiftY == 0) {
+            return;
+        }
+
+        // The shift is within the window, so it fits an int; the caller reports the pan
+        boolean deferred = panChangeDeferred;
+        panChangeDeferred = true;
+        try {
+            panContainer.scrollTo(panContainer.getScrollX() - (int) shiftX, panContainer.getScrollY() - (int) shiftY);
+        } finally {
+            panChangeDeferred = deferred;
+        }
+
+        onVirtualOriginMoved();
+    }
+
+    private void onVirtualOriginMoved() {
+        // Rendered tiles show the content about the old origin
+        if (tileCacheEnabled) {
+            invalidateTileCache();
+        }
+
+        notifyVirtualOriginChanged();
+    }
+
+    private void notifyVirtualOriginChanged() {
+        // Content opts in by implementing the listener
+        View child = spliced ? getContentHost().getChildAt(0) : getChildAt(0);
+        if (child instanceof OnVirtualOriginChangedListener) {
+            ((OnVirtualOriginChangedListener) child).onVirtualOriginChanged(getVirtualOriginX(), getVirtualOriginY());
+        }
+    }
+
+    private void scheduleMetricsFrame() {
+        // Frames only come while attached, one callback at a time
+        if (metricsFrameScheduled || !attached) {
+            return;
+        }
+
+        if (metricsFrameCallback != null) {
+            metricsFrameCallback.post();
+        } else {
+            ViewCompat.postOnAnimation(this, metricsFrameRunnable);
+        }
+
+        metricsFrameScheduled = true;
+    }
+
+    private void cancelMetricsFrame() {
+        // Nothing scheduled
+        if (!metricsFrameScheduled) {
+            return;
+        }
+
+        if (metricsFrameCallback != null) {
+            metricsFrameCallback.cancel();
+        } else {
+            removeCallbacks(metricsFrameRunnable);
+        }
+
+        metricsFrameScheduled = false;
+    }
+
+    private void onMetricsFrame(long frameTimeNanos) {
+        metricsFrameScheduled = false;
+
+        // Only frames while panning count
+        if (!metricsEnabled || panState == PAN_STATE_IDLE) {
+            return;
+        }
+
+        panMetrics.onFrame(frameTimeNanos);
+        scheduleMetricsFrame();
+    }
+
+    private void updateMetricsFrameInterval() {
+        // Frames are expected at the display's refresh rate
+        WindowManager windowManager = (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = windowManager == null ? 0f : windowManager.getDefaultDisplay().getRefreshRate();
+
+        if (refreshRate > 0f) {
+            panMetrics.setFrameIntervalNanos((long) (1000000000L / refreshRate));
+        }
+    }
+
+    private void onPanActivity(boolean scrollChanged) {
+        // Pans while suspended land at once, so there is nothing to settle
+        if (suspended) {
+            return;
+        }
+
+        // Note activity for the settle check
+        panActiveSinceSettleCheck = true;
+
+        // Only actual scroll changes may start a pan
+        if (!scrollChanged) {
+            return;
+        }
+
+        if (touchActive) {
+            // Scrolling under a finger
+            setPanState(PAN_STATE_DRAGGING);
+        } else if (panState == PAN_STATE_IDLE) {
+            // Scrolling on its own (fling, smooth pan, programmatic)
+            setPanState(PAN_STATE_SETTLING);
+            scheduleSettleCheck();
+        }
+    }
+
+    private void scheduleSettleCheck() {
+        // Checks only run while attached and only one at a time
+        if (settleCheckScheduled || !attached) {
+            return;
+        }
+
+        // Check once per frame, after the scrollers have had a chance to move
+        ViewCompat.postOnAnimation(this, settleCheckRunnable);
+        settleCheckScheduled = true;
+    }
+
+    private void setPanState(int panState) {
+        // Ignore non-transitions
+        if (panState == this.panState) {
+            return;
+        }
+
+        // Anything but settling ends a fling (landed or caught)
+        if (panState != PAN_STATE_SETTLING && prefetchPlanner.isFlinging()) {
+            if (metricsEnabled) {
+                panMetrics.onFlingEnded(System.nanoTime(), getPanX(), getPanY());
+            }
+
+            prefetchPlanner.endFling();
+            clearPlannedTileRange();
+
+            if (tileLayer != null) {
+                tileLayer.setMotion(0, 0);
+            }
+        }
+
+        // Report the final position before announcing the stop
+        if (panState == PAN_STATE_IDLE) {
+            flushPanChanged();
+        }
+
+        int oldPanState = this.panState;
+        this.panState = panState;
+
+        // Count frames from the start of a pan to its end
+        if (metricsEnabled) {
+            if (oldPanState == PAN_STATE_IDLE) {
+                scheduleMetricsFrame();
+            } else if (panState == PAN_STATE_IDLE) {
+                cancelMetricsFrame();
+                panMetrics.onPanStopped();
+            }
+        }
+
+        // Snapshot is taken as panning starts and let go once it stops
+        if (snapshotWhilePanning && (oldPanState == PAN_STATE_IDLE || panState == PAN_STATE_IDLE)) {
+            if (panState == PAN_STATE_IDLE) {
+                releaseSnapshot();
+            } else if (isDrawingSnapshot() && spliced && getContentHost().getChildAt(0) != null) {
+                captureSnapshot(getContentHost().getChildAt(0));
+            }
+
+            invalidateContent();
+        }
+
+        // Notify listener(s)
+        Object[] stateListeners = panStateChangedListenerList.snapshot();
+        for (int i = 0; i < stateListeners.length; i++) {
+            ((OnPanStateChangedListener) stateListeners[i]).onPanStateChanged(oldPanState, panState);
+        }
+
+        // Notify listener(s) if just stopped
+        if (panState == PAN_STATE_IDLE) {
+            Object[] stoppedListeners = panStoppedListenerList.snapshot();
+            for (int i = 0; i < stoppedListeners.length; i++) {
+                ((OnPanStoppedListener) stoppedListeners[i]).onPanStopped();
+            }
+
+            // Report the metrics of the pan just finished
+            if (metricsEnabled) {
+                Object[] metricsListeners = panMetricsListenerList.snapshot();
+                for (int i = 0; i < metricsListeners.length; i++) {
+                    ((OnPanMetricsListener) metricsListeners[i]).onPanMetrics(panMetrics);
+                }
+            }
+        }
+    }
+
+    private ViewGroup getContentHost() {
+        // The view group directly hosting the child once spliced
+        if (useUnifiedEngine) {
+            return panContainer;
+        }
+
+        return scrollViewY;
+    }
+
+    private void splice() {
+        // Do not continue if already spliced
+        if (spliced) {
+            return;
+        }
+
+        // Engine views are only built once something is spliced into them
+        if (useUnifiedEngine) {
+            createUnifiedEngine();
+        } else {
+            createNestedEngine();
+        }
+
+        // Detach child from this view
+        View child = getChildAt(0);
+        super.removeAllViews();
+
+        // The host may be measuring a different child now
+        contentMeasureCache.invalidate();
+
+        if (useUnifiedEngine) {
+            // Splice pan container between this view and its child
+            if (child != null) {
+                panContainer.addView(child);
+            }
+            super.addView(panContainer, 0, generateDefaultLayoutParams());
+        } else {
+            // Splice scroll views between this view and its child
+            if (child != null) {
+                scrollViewY.addView(child);
+            }
+            scrollViewX.addView(scrollViewY);
+            super.addView(scrollViewX, 0, generateDefaultLayoutParams());
+        }
+
+        // Set spliced flag
+        spliced = true;
+    }
+
+    private void drawCachedContent(Canvas canvas, View child) {
+        // One picture stands in for the child while it pans
+        if (isDrawingSnapshot()) {
+            drawSnapshot(canvas, child);
+            return;
+        }
+
+        // Create cache on first use
+        if (tileCache == null) {
+            tileCache = new TileCache(tileCacheTileSize, tileCacheMaxSize);
+        }
+
+        // Full detail once settled, one level coarser while a zoom is in progress
+        int level = getDetailLevel(zooming);
+        float span = getTileSpan(level);
+
+        // Visible region in content coordinates, clipped to the child
+        float left = Math.max(0f, (getPanX() - child.getLeft()) / zoom);
+        float top = Math.max(0f, (getPanY() - child.getTop()) / zoom);
+        float right = Math.min(child.getWidth(), (getPanX() - child.getLeft() + getWidth()) / zoom);
+        float bottom = Math.min(child.getHeight(), (getPanY() - child.getTop() + getHeight()) / zoom);
+
+        // Nothing visible
+        if (right <= left || bottom <= top) {
+            return;
+        }
+
+        int firstColumn = (int) (left / span);
+        int lastColumn = (int) Math.ceil(right / span) - 1;
+        int firstRow = (int) (top / span);
+        int lastRow = (int) Math.ceil(bottom / span) - 1;
+
+        // Rendered content is drawn off the UI thread
+        TileRenderer tileRenderer = child == renderedContentView ? renderedContentView.getTileRenderer() : null;
+
+        // Replan background work only when the visible tiles change
+        if (tileRenderer != null && (level != plannedLevel || firstColumn != plannedFirstColumn || lastColumn != plannedLastColumn || firstRow != plannedFirstRow || lastRow != plannedLastRow)) {
+            planTileRenders(tileRenderer, child, level, firstColumn, lastColumn, firstRow, lastRow);
+        }
+
+        // Draw in content coordinates at the current zoom
+        canvas.save();
+        canvas.translate(child.getLeft(), child.getTop());
+        canvas.scale(zoom, zoom);
+
+        // Draw every visible tile, rendering those not cached yet
+        boolean rendered = false;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Bitmap tile = tileCache.get(level, column, row);
+
+                float tileLeft = column * span;
+                float tileTop = row * span;
+
+                if (tile == null) {
+                    // Queue it and stand in with another level or a placeholder meanwhile
+                    if (tileRenderer != null) {
+                        requestTileRender(tileRenderer, level, column, row, 1);
+
+                        if (!drawCoarserTile(canvas, level, column, row, span)) {
+                            canvas.drawRect(tileLeft, tileTop, Math.min(tileLeft + span, child.getWidth()), Math.min(tileTop + span, child.getHeight()), tilePlaceholderPaint);
+                            drawFinerTiles(canvas, level, column, row, span);
+                        }
+
+                        continue;
+                    }
+
+                    tile = renderTile(child, level, column, row);
+                    tileCache.put(level, column, row, tile);
+                    rendered = true;
+                }
+
+                tileDestination.set(tileLeft, tileTop, tileLeft + span, tileTop + span);
+                canvas.drawBitmap(tile, null, tileDestination, tilePaint);
+            }
+        }
+
+        canvas.restore();
+
+        // These may have been the last tiles missing where a fling lands
+        if (rendered) {
+            updateLandingReadiness();
+        }
+    }
+
+    private boolean drawCoarserTile(Canvas canvas, int level, int column, int row, float span) {
+        // Look a few levels up the pyramid for a tile covering this one
+        for (int coarserLevel = level + 1; coarserLevel <= Math.min(MAX_DETAIL_LEVEL, level + MAX_STAND_IN_LEVELS); coarserLevel++) {
+            int factor = 1 << (coarserLevel - level);
+
+            Bitmap tile = tileCache.peek(coarserLevel, column / factor, row / factor);
+            if (tile == null) {
+                continue;
+            }
+
+            // Upscale just the part of it covering this tile
+            int size = tile.getWidth() / factor;
+            int sourceLeft = (column % factor) * size;
+            int sourceTop = (row % factor) * size;
+            tileSource.set(sourceLeft, sourceTop, sourceLeft + size, sourceTop + size);
+            tileDestination.set(column * span, row * span, (column + 1) * span, (row + 1) * span);
+            canvas.drawBitmap(tile, tileSource, tileDestination, tilePaint);
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private void drawFinerTiles(Canvas canvas, int level, int column, int row, float span) {
+        // The next finer level is likely cached when a zoom out begins
+        if (level <= MIN_DETAIL_LEVEL) {
+            return;
         }
 
-        // Enforce one child
-        if (count != 0) {
-            throw new IllegalStateException("PanView can only host one direct child");
+        float halfSpan = span / 2f;
+
+        // Downscale whichever of the four finer tiles are there
+        for (int subRow = 2 * row; subRow <= 2 * row + 1; subRow++) {
+            for (int subColumn = 2 * column; subColumn <= 2 * column + 1; subColumn++) {
+                Bitmap tile = tileCache.peek(level - 1, subColumn, subRow);
+
+                if (tile != null) {
+                    tileDestination.set(subColumn * halfSpan, subRow * halfSpan, (subColumn + 1) * halfSpan, (subRow + 1) * halfSpan);
+                    canvas.drawBitmap(tile, null, tileDestination, tilePaint);
+                }
+            }
         }
+    }
 
-        // Add view to appropriate parent
-        if (spliced) {
-            scrollViewY.addView(child);
-        } else {
-            super.addView(child);
+    private void planTileRenders(TileRenderer tileRenderer, View child, int level, int firstColumn, int lastColumn, int firstRow, int lastRow) {
+        plannedLevel = level;
+        plannedFirstColumn = firstColumn;
+        plannedLastColumn = lastColumn;
+        plannedFirstRow = firstRow;
+        plannedLastRow = lastRow;
+
+        int tileSize = tileCache.getTileSize();
+
+        // Prefetch ring covers the tile margin, at least one tile deep
+        int ring = Math.max(1, (tileMargin + tileSize - 1) / tileSize);
+
+        int ringLeft = ring;
+        int ringRight = ring;
+        int ringTop = ring;
+        int ringBottom = ring;
+
+        // While flinging, the ring reaches twice as far ahead of the motion
+        if (prefetchPlanner.isFlinging()) {
+            if (prefetchPlanner.getDirectionX() < 0) {
+                ringLeft += ring;
+            } else if (prefetchPlanner.getDirectionX() > 0) {
+                ringRight += ring;
+            }
+
+            if (prefetchPlanner.getDirectionY() < 0) {
+                ringTop += ring;
+            } else if (prefetchPlanner.getDirectionY() > 0) {
+                ringBottom += ring;
+            }
+        }
+
+        // Area of interest is the visible tiles plus the ring, within the content
+        float span = getTileSpan(level);
+        int columnCount = (int) Math.ceil(child.getWidth() / span);
+        int rowCount = (int) Math.ceil(child.getHeight() / span);
+        int areaFirstColumn = Math.max(0, firstColumn - ringLeft);
+        int areaLastColumn = Math.min(columnCount - 1, lastColumn + ringRight);
+        int areaFirstRow = Math.max(0, firstRow - ringTop);
+        int areaLastRow = Math.min(rowCount - 1, lastRow + ringBottom);
+
+        // Where the fling is predicted to stop, if flinging
+        updateLandingTileRange(child, level);
+
+        // Cancel work for other levels and for tiles that left both the area of interest and the landing viewport
+        for (int i = pendingTileRenders.size() - 1; i >= 0; i--) {
+            TileRenderTask task = pendingTileRenders.valueAt(i);
+
+            boolean inArea = isTileInRange(task.column, task.row, areaFirstColumn, areaLastColumn, areaFirstRow, areaLastRow);
+            boolean inLanding = isTileInRange(task.column, task.row, landingFirstColumn, landingLastColumn, landingFirstRow, landingLastRow);
+
+            if (task.level != level || (!inArea && !inLanding)) {
+                cancelTileRender(task);
+                pendingTileRenders.removeAt(i);
+            }
+        }
+
+        // Queue the landing viewport ahead of everything, as that is what will be on screen longest
+        for (int row = landingFirstRow; row <= landingLastRow; row++) {
+            for (int column = landingFirstColumn; column <= landingLastColumn; column++) {
+                requestTileRender(tileRenderer, level, column, row, 0);
+            }
+        }
+
+        // Queue the ring, nearest first (visible tiles are queued as they are drawn)
+        for (int row = areaFirstRow; row <= areaLastRow; row++) {
+            for (int column = areaFirstColumn; column <= areaLastColumn; column++) {
+                int distanceX = column < firstColumn ? firstColumn - column : Math.max(0, column - lastColumn);
+                int distanceY = row < firstRow ? firstRow - row : Math.max(0, row - lastRow);
+                int distance = Math.max(distanceX, distanceY);
+
+                if (distance > 0) {
+                    requestTileRender(tileRenderer, level, column, row, 1 + distance);
+                }
+            }
         }
     }
 
-    @Override
-    public void addView(View child, int index) {
-        // Current child count
-        int count;
+    private void updateLandingTileRange(View child, int level) {
+        // Nothing predicted
+        if (!prefetchPlanner.isFlinging()) {
+            clearLandingTileRange();
+            return;
+        }
 
-        // Get child count
-        if (spliced) {
-            count = scrollViewY.getChildCount();
-        } else {
-            count = getChildCount();
+        // Predicted viewport in content coordinates, clipped to the child
+        float left = Math.max(0f, (prefetchPlanner.getFinalX() - child.getLeft()) / zoom);
+        float top = Math.max(0f, (prefetchPlanner.getFinalY() - child.getTop()) / zoom);
+        float right = Math.min(child.getWidth(), (prefetchPlanner.getFinalX() - child.getLeft() + getWidth()) / zoom);
+        float bottom = Math.min(child.getHeight(), (prefetchPlanner.getFinalY() - child.getTop() + getHeight()) / zoom);
+
+        // Lands on nothing
+        if (right <= left || bottom <= top) {
+            clearLandingTileRange();
+            return;
         }
 
-        // Enforce one child
-        if (count != 0) {
-            throw new IllegalStateException("PanView can only host one direct child");
+        float span = getTileSpan(level);
+        landingFirstColumn = (int) (left / span);
+        landingLastColumn = (int) Math.ceil(right / span) - 1;
+        landingFirstRow = (int) (top / span);
+        landingLastRow = (int) Math.ceil(bottom / span) - 1;
+    }
+
+    private void clearLandingTileRange() {
+        landingFirstColumn = 0;
+        landingLastColumn = -1;
+        landingFirstRow = 0;
+        landingLastRow = -1;
+    }
+
+    private void updateLandingReadiness() {
+        // Only until ready
+        if (!prefetchPlanner.isFlinging() || prefetchPlanner.isLandingReady()) {
+            return;
         }
 
-        // Add view to appropriate parent
-        if (spliced) {
-            scrollViewY.addView(child, index);
+        View child = spliced ? getContentHost().getChildAt(0) : null;
+
+        // Nothing to land on
+        if (child == null) {
+            return;
+        }
+
+        boolean ready;
+        if (tileCacheEnabled || renderedContentView != null) {
+            // Drawn from tiles, which are ready once cached (flings land at full detail)
+            int level = getDetailLevel(false);
+            updateLandingTileRange(child, level);
+
+            ready = tileCache != null && isLandingTileRangeCached(level);
+        } else if (child == tileLayer) {
+            // Ready once its tile views are bound
+            ready = !updateLandingContentRect(child) || tileLayer.isBound(landingContentRect);
+        } else if (child instanceof CullingLayout) {
+            // Ready once a culling pass has laid out its children
+            ready = !updateLandingContentRect(child) || ((CullingLayout) child).isCulledFor(landingContentRect);
         } else {
-            super.addView(child, index);
+            // Anything else gives no sign, so the fling goes uncounted
+            return;
+        }
+
+        prefetchPlanner.markLandingTracked();
+
+        if (ready) {
+            prefetchPlanner.markLandingReady();
         }
     }
 
-    @Override
-    public void addView(View child, ViewGroup.LayoutParams layoutParams) {
-        // Current child count
-        int count;
+    private boolean isLandingTileRangeCached(int level) {
+        // Still waiting on a landing tile
+        for (int row = landingFirstRow; row <= landingLastRow; row++) {
+            for (int column = landingFirstColumn; column <= landingLastColumn; column++) {
+                if (!tileCache.contains(level, column, row)) {
+                    return false;
+                }
+            }
+        }
 
-        // Get child count
-        if (spliced) {
-            count = scrollViewY.getChildCount();
-        } else {
-            count = getChildCount();
+        return true;
+    }
+
+    private boolean updateLandingContentRect(View child) {
+        // Predicted viewport relative to the child, undoing the zoom and clipped to it
+        int left = Math.max(0, (int) Math.floor((prefetchPlanner.getFinalX() - child.getLeft()) / zoom));
+        int top = Math.max(0, (int) Math.floor((prefetchPlanner.getFinalY() - child.getTop()) / zoom));
+        int right = Math.min(child.getWidth(), (int) Math.ceil((prefetchPlanner.getFinalX() - child.getLeft() + getWidth()) / zoom));
+        int bottom = Math.min(child.getHeight(), (int) Math.ceil((prefetchPlanner.getFinalY() - child.getTop() + getHeight()) / zoom));
+
+        landingContentRect.set(left, top, right, bottom);
+
+        // Lands on nothing
+        return right > left && bottom > top;
+    }
+
+    private void onFlingStarted(int velocityX, int velocityY, int finalX, int finalY) {
+        // Time and measure the fling from where it started
+        if (metricsEnabled) {
+            panMetrics.onFlingStarted(System.nanoTime(), getPanX(), getPanY());
         }
 
-        // Enforce one child
-        if (count != 0) {
-            throw new IllegalStateException("PanView can only host one direct child");
+        prefetchPlanner.startFling(velocityX, velocityY, finalX, finalY);
+
+        // Bind tile views further ahead of the motion
+        if (tileLayer != null) {
+            tileLayer.setMotion(prefetchPlanner.getDirectionX(), prefetchPlanner.getDirectionY());
         }
 
-        // Add view to appropriate parent
-        if (spliced) {
-            scrollViewY.addView(child, layoutParams);
-        } else {
-            super.addView(child, layoutParams);
+        // Replan background work around the prediction on the next frame
+        clearPlannedTileRange();
+        invalidateContent();
+
+        // Landing tiles may all be cached already
+        updateLandingReadiness();
+    }
+
+    private static boolean isTileInRange(int column, int row, int firstColumn, int lastColumn, int firstRow, int lastRow) {
+        return column >= firstColumn && column <= lastColumn && row >= firstRow && row <= lastRow;
+    }
+
+    private void requestTileRender(TileRenderer tileRenderer, int level, int column, int row, int priority) {
+        long key = packTileKey(level, column, row);
+
+        // Already cached or on its way
+        if (pendingTileRenders.get(key) != null || tileCache.contains(level, column, row)) {
+            return;
         }
+
+        TileRenderTask task = new TileRenderTask(level, column, row, tileCache.getContentVersion(), priority, tileCache.acquireBitmap(), TileCache.getLevelScale(level), tileRenderer, tileRenderCallback);
+        pendingTileRenders.put(key, task);
+
+        TileRenderExecutor.getInstance().submit(task);
     }
 
-    @Override
-    public void addView(View child, int index, ViewGroup.LayoutParams layoutParams) {
-        // Current child count
-        int count;
+    private void cancelTileRender(TileRenderTask task) {
+        // If it never started, its bitmap can go straight back; otherwise the callback returns it
+        if (TileRenderExecutor.getInstance().cancel(task) && tileCache != null) {
+            tileCache.releaseBitmap(task.bitmap);
+        }
+    }
 
-        // Get child count
+    private void cancelTileRenders() {
+        // Drop all background work
+        for (int i = 0; i < pendingTileRenders.size(); i++) {
+            cancelTileRender(pendingTileRenders.valueAt(i));
+        }
+
+        pendingTileRenders.clear();
+        clearPlannedTileRange();
+    }
+
+    private void clearPlannedTileRange() {
+        plannedLevel = 0;
+        plannedFirstColumn = 0;
+        plannedLastColumn = -1;
+        plannedFirstRow = 0;
+        plannedLastRow = -1;
+    }
+
+    private static long packTileKey(int level, int column, int row) {
+        // Eight bits of level, then 28 bits each of column and row
+        return ((long) (level & 0xff) << 56) | ((long) (column & 0xfffffff) << 28) | (row & 0xfffffff);
+    }
+
+    private boolean isDrawingFromTiles() {
+        return tileCacheEnabled || renderedContentView != null || isDrawingSnapshot();
+    }
+
+    private boolean isDrawingSnapshot() {
+        // Tiles stand in for a live child only while it moves
+        return snapshotWhilePanning && panState != PAN_STATE_IDLE && !tileCacheEnabled && renderedContentView == null;
+    }
+
+    private void releaseSnapshot() {
+        // Content may change freely while live, so the next pan takes a fresh one (the bitmap is kept for it)
+        snapshotValid = false;
+    }
+
+    private void drawSnapshot(Canvas canvas, View child) {
+        // Visible region in content coordinates, clipped to the child
+        int left = Math.max(0, (int) Math.floor((getPanX() - child.getLeft()) / zoom));
+        int top = Math.max(0, (int) Math.floor((getPanY() - child.getTop()) / zoom));
+        int right = Math.min(child.getWidth(), (int) Math.ceil((getPanX() - child.getLeft() + getWidth()) / zoom));
+        int bottom = Math.min(child.getHeight(), (int) Math.ceil((getPanY() - child.getTop() + getHeight()) / zoom));
+
+        // Nothing visible
+        if (right <= left || bottom <= top) {
+            return;
+        }
+
+        // Take it again only once the pan carries the viewport past its margin
+        if (!snapshotValid || !snapshotRect.contains(left, top, right, bottom)) {
+            captureSnapshot(child);
+        }
+
+        // The part of the bitmap in use, which may be larger than needed
+        tileSource.set(0, 0, (int) Math.ceil(snapshotRect.width() * snapshotScale), (int) Math.ceil(snapshotRect.height() * snapshotScale));
+        tileDestination.set(snapshotRect);
+
+        // Draw in content coordinates at the current zoom
+        canvas.save();
+        canvas.translate(child.getLeft(), child.getTop());
+        canvas.scale(zoom, zoom);
+        canvas.drawBitmap(snapshotBitmap, tileSource, tileDestination, tilePaint);
+        canvas.restore();
+    }
+
+    private void captureSnapshot(View child) {
+        // Visible region in content coordinates
+        float left = (getPanX() - child.getLeft()) / zoom;
+        float top = (getPanY() - child.getTop()) / zoom;
+        float right = (getPanX() - child.getLeft() + getWidth()) / zoom;
+        float bottom = (getPanY() - child.getTop() + getHeight()) / zoom;
+
+        // Plus a quarter viewport of slack on every side, twice that ahead of a fling
+        float marginX = getWidth() / zoom / 4f;
+        float marginY = getHeight() / zoom / 4f;
+        left -= prefetchPlanner.getDirectionX() < 0 ? 2f * marginX : marginX;
+        right += prefetchPlanner.getDirectionX() > 0 ? 2f * marginX : marginX;
+        top -= prefetchPlanner.getDirectionY() < 0 ? 2f * marginY : marginY;
+        bottom += prefetchPlanner.getDirectionY() > 0 ? 2f * marginY : marginY;
+
+        // Clipped to the child
+        snapshotRect.set(Math.max(0, (int) Math.floor(left)), Math.max(0, (int) Math.floor(top)), Math.min(child.getWidth(), (int) Math.ceil(right)), Math.min(child.getHeight(), (int) Math.ceil(bottom)));
+
+        // Nothing to take
+        if (snapshotRect.isEmpty()) {
+            snapshotValid = false;
+            return;
+        }
+
+        // Same detail as tiles would have
+        snapshotScale = TileCache.getLevelScale(getDetailLevel(false));
+        int width = (int) Math.ceil(snapshotRect.width() * snapshotScale);
+        int height = (int) Math.ceil(snapshotRect.height() * snapshotScale);
+
+        // Reuse the bitmap from the last pan if it is big enough
+        if (snapshotBitmap == null || snapshotBitmap.getWidth() < width || snapshotBitmap.getHeight() < height) {
+            snapshotBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+
+        // One draw of the child for the whole region
+        drawIntoSnapshot(child, 0, 0, width, height);
+        snapshotValid = true;
+    }
+
+    private void redrawSnapshot(Rect dirty) {
+        View child = spliced ? getContentHost().getChildAt(0) : null;
+
+        // Child is gone, so take a fresh one on the next draw
+        if (child == null) {
+            releaseSnapshot();
+            return;
+        }
+
+        // Only the dirty area within the snapshot, in bitmap pixels
+        int left = (int) Math.floor((Math.max(dirty.left, snapshotRect.left) - snapshotRect.left) * snapshotScale);
+        int top = (int) Math.floor((Math.max(dirty.top, snapshotRect.top) - snapshotRect.top) * snapshotScale);
+        int right = (int) Math.ceil((Math.min(dirty.right, snapshotRect.right) - snapshotRect.left) * snapshotScale);
+        int bottom = (int) Math.ceil((Math.min(dirty.bottom, snapshotRect.bottom) - snapshotRect.top) * snapshotScale);
+
+        // Outside the snapshot
+        if (right <= left || bottom <= top) {
+            return;
+        }
+
+        drawIntoSnapshot(child, left, top, right, bottom);
+        invalidateContent();
+    }
+
+    private void drawIntoSnapshot(View child, int left, int top, int right, int bottom) {
+        // Reuse the tile canvas
+        if (tileCanvas == null) {
+            tileCanvas = new Canvas();
+        }
+
+        // Clear and redraw just the given bitmap area, so children outside it are rejected before drawing
+        tileCanvas.setBitmap(snapshotBitmap);
+        tileCanvas.save();
+        tileCanvas.clipRect(left, top, right, bottom);
+        tileCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        tileCanvas.scale(snapshotScale, snapshotScale);
+        tileCanvas.translate(-snapshotRect.left, -snapshotRect.top);
+        child.draw(tileCanvas);
+        tileCanvas.restore();
+
+        // Let go of the bitmap (null is only accepted from Honeycomb on)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            tileCanvas.setBitmap(null);
+        }
+    }
+
+    private int getDetailLevel(boolean coarse) {
+        // Finest level that is never upscaled at the current zoom (the epsilon absorbs rounding at exact powers of two)
+        int level = (int) Math.floor(-Math.log(zoom) / Math.log(2.0) + 1e-4);
+
+        // One level coarser is a quarter of the pixels
+        if (coarse) {
+            level++;
+        }
+
+        return Math.max(MIN_DETAIL_LEVEL, Math.min(MAX_DETAIL_LEVEL, level));
+    }
+
+    private float getTileSpan(int level) {
+        // Content pixels covered by one tile at this level
+        return tileCache.getTileSize() / TileCache.getLevelScale(level);
+    }
+
+    private Bitmap renderTile(View child, int level, int column, int row) {
+        // Reuse a pooled bitmap
+        Bitmap tile = tileCache.acquireBitmap();
+
+        // Reuse one canvas for all tiles
+        if (tileCanvas == null) {
+            tileCanvas = new Canvas();
+        }
+
+        float scale = TileCache.getLevelScale(level);
+        float span = getTileSpan(level);
+
+        // Rasterize the tile's region of the child at the level's scale, rejecting children outside it before they draw
+        tileCanvas.setBitmap(tile);
+        tileCanvas.save();
+        tileCanvas.clipRect(0, 0, tile.getWidth(), tile.getHeight());
+        tileCanvas.scale(scale, scale);
+        tileCanvas.translate(-column * span, -row * span);
+        child.draw(tileCanvas);
+        tileCanvas.restore();
+
+        // Let go of the bitmap (null is only accepted from Honeycomb on)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+            tileCanvas.setBitmap(null);
+        }
+
+        return tile;
+    }
+
+    private void invalidateContent() {
+        // Redraw the content host
         if (spliced) {
-            count = scrollViewY.getChildCount();
+            getContentHost().invalidate();
         } else {
-            count = getChildCount();
+            invalidate();
         }
+    }
 
-        // Enforce one child
-        if (count != 0) {
-            throw new IllegalStateException("PanView can only host one direct child");
+    private void updateViewport() {
+        // Tiles cover the viewport in content coordinates
+        if (tileLayer != null) {
+            tileLayer.setViewport((int) (getPanX() / zoom), (int) (getPanY() / zoom), (int) Math.ceil(getWidth() / zoom), (int) Math.ceil(getHeight() / zoom));
         }
 
-        // Add view to appropriate parent
+        updateVisibleContentRect(false);
+
+        // Content may have caught up with where a fling lands
+        updateLandingReadiness();
+    }
+
+    private void updateVisibleContentRect(boolean contentChanged) {
+        View child = spliced ? getContentHost().getChildAt(0) : null;
+
+        // Nothing to look at
+        if (child == null) {
+            return;
+        }
+
+        // Viewport relative to the child, undoing the zoom
+        int left = (int) Math.floor((getPanX() - child.getLeft()) / zoom);
+        int top = (int) Math.floor((getPanY() - child.getTop()) / zoom);
+        int right = (int) Math.ceil((getPanX() + getWidth() - child.getLeft()) / zoom);
+        int bottom = (int) Math.ceil((getPanY() + getHeight() - child.getTop()) / zoom);
+
+        // Unchanged, and the content has already been told
+        if (!contentChanged && visibleContentRect.left == left && visibleContentRect.top == top && visibleContentRect.right == right && visibleContentRect.bottom == bottom) {
+            return;
+        }
+
+        visibleContentRect.set(left, top, right, bottom);
+
+        // Content opts in by implementing the listener
+        if (child instanceof OnVisibleContentChangedListener) {
+            ((OnVisibleContentChangedListener) child).onVisibleContentChanged(visibleContentRect);
+        }
+
+        // Notify listener(s)
+        Object[] listeners = visibleContentChangedListenerList.snapshot();
+        for (int i = 0; i < listeners.length; i++) {
+            ((OnVisibleContentChangedListener) listeners[i]).onVisibleContentChanged(visibleContentRect);
+        }
+    }
+
+    private void applyZoom(float zoom, float focusX, float focusY) {
+        zoom = Math.max(minZoom, Math.min(maxZoom, zoom));
+
+        // Ignore non-changes
+        if (zoom == this.zoom) {
+            return;
+        }
+
+        View child = spliced ? getContentHost().getChildAt(0) : null;
+
+        // Content point under the focus, which should stay put
+        float contentX = child == null ? 0f : (getPanX() + focusX - child.getLeft()) / this.zoom;
+        float contentY = child == null ? 0f : (getPanY() + focusY - child.getTop()) / this.zoom;
+
+        this.zoom = zoom;
+
+        // The engine scales the content, so bring it in
+        if (child == null && lazyEngine) {
+            requestLayout();
+        }
+
+        if (child != null && useUnifiedEngine) {
+            applyContentZoom(child);
+
+            // Scroll range follows the scaled content
+            panContainer.scrollTo(Math.round(child.getLeft() + contentX * zoom - focusX), Math.round(child.getTop() + contentY * zoom - focusY));
+        }
+
+        // Content moved even if the pan did not
+        updateViewport();
+        invalidateContent();
+        showScrollbars();
+    }
+
+    private boolean showScrollbars() {
+        updateScrollbars();
+
+        return scrollbarRenderer.awaken();
+    }
+
+    private void updateScrollbars() {
+        // A virtual canvas is measured in logical pixels, scaled down as needed to fit an int
+        if (virtualCanvasEnabled) {
+            long scaleX = 1 + virtualAxisX.getContentSize() / Integer.MAX_VALUE;
+            long scaleY = 1 + virtualAxisY.getContentSize() / Integer.MAX_VALUE;
+            scrollbarRenderer.setScroll((int) (getVirtualPanX() / scaleX), (int) (virtualAxisX.getContentSize() / scaleX), (int) (getWidth() / scaleX), (int) (getVirtualPanY() / scaleY), (int) (virtualAxisY.getContentSize() / scaleY), (int) (getHeight() / scaleY));
+            return;
+        }
+
+        View child = spliced ? getContentHost().getChildAt(0) : null;
+
+        // Range is the (zoomed) content, extent the viewport
+        int rangeX = child == null ? 0 : Math.round(child.getWidth() * zoom);
+        int rangeY = child == null ? 0 : Math.round(child.getHeight() * zoom);
+        scrollbarRenderer.setScroll(getPanX(), rangeX, getWidth(), getPanY(), rangeY, getHeight());
+    }
+
+    private void applyContentZoom(View child) {
+        // Scale about the child's origin, so touch targets follow on Honeycomb and up
+        ViewCompat.setPivotX(child, 0f);
+        ViewCompat.setPivotY(child, 0f);
+        ViewCompat.setScaleX(child, zoom);
+        ViewCompat.setScaleY(child, zoom);
+    }
+
+    private void beginZoom() {
+        zooming = true;
+    }
+
+    private void endZoom() {
+        // Already settled
+        if (!zooming) {
+            return;
+        }
+
+        zooming = false;
+
+        // Redraw at full detail
+        clearPlannedTileRange();
+        invalidateContent();
+        updateLevelOfDetail();
+    }
+
+    private void cancelZoomAnimation() {
+        // Nothing running
+        if (!zoomAnimationRunning) {
+            return;
+        }
+
+        removeCallbacks(zoomAnimationRunnable);
+        zoomAnimationRunning = false;
+        endZoom();
+    }
+
+    private void updateLevelOfDetail() {
+        // Detail the content is drawn at, tiles or not
+        float detailScale = isDrawingFromTiles() ? TileCache.getLevelScale(getDetailLevel(false)) : zoom;
+
+        // Only changes are reported
+        if (detailScale == reportedDetailScale) {
+            return;
+        }
+
+        reportedDetailScale = detailScale;
+
+        // Content opts in by implementing the listener
+        View child = spliced ? getContentHost().getChildAt(0) : getChildAt(0);
+        if (child instanceof OnLevelOfDetailChangedListener) {
+            ((OnLevelOfDetailChangedListener) child).onLevelOfDetailChanged(detailScale);
+        }
+
+        TileRenderer tileRenderer = getTileRenderer();
+        if (tileRenderer instanceof OnLevelOfDetailChangedListener) {
+            ((OnLevelOfDetailChangedListener) tileRenderer).onLevelOfDetailChanged(detailScale);
+        }
+    }
+
+    private void removeContent() {
+        // Remove child from wherever it lives
         if (spliced) {
-            scrollViewY.addView(child, index, layoutParams);
+            getContentHost().removeAllViews();
         } else {
-            super.addView(child, index, layoutParams);
+            super.removeAllViews();
+        }
+    }
+
+    private void unsplice() {
+        // Do not continue if not spliced
+        if (!spliced) {
+            return;
+        }
+
+        // Detach child from its host
+        ViewGroup host = getContentHost();
+        View child = host.getChildAt(0);
+        host.removeAllViews();
+
+        // Tear down engine views
+        if (scrollViewX != null) {
+            scrollViewX.removeAllViews();
+        }
+        super.removeAllViews();
+
+        // Clear spliced flag
+        spliced = false;
+
+        // The child is measured afresh on its return
+        directMeasureCache.invalidate();
+
+        // Host child directly again, unscaled
+        if (child != null) {
+            ViewCompat.setScaleX(child, 1f);
+            ViewCompat.setScaleY(child, 1f);
+
+            super.addView(child);
         }
     }
 
-    @Override
-    public void addView(View child, int width, int height) {
-        // Current child count
-        int count;
+    public interface OnPanChangedListener {
+
+        void onPanChanged(int l, int t, int oldl, int oldt);
+
+    }
+
+    public interface OnPanStoppedListener {
 
-        // Get child count
-        if (spliced) {
-            count = scrollViewY.getChildCount();
-        } else {
-            count = getChildCount();
-        }
+        void onPanStopped();
 
-        // Enforce one child
-        if (count != 0) {
-            throw new IllegalStateException("PanView can only host one direct child");
-        }
+    }
+
+    public interface OnPanStateChangedListener {
+
+        void onPanStateChanged(int oldState, int newState);
 
-        // Add view to appropriate parent
-        if (spliced) {
-            scrollViewY.addView(child, width, height);
-        } else {
-            super.addView(child, width, height);
-        }
     }
 
-    @Override
-    public boolean awakenScrollBars() {
-        return scrollbarLens.awakenScrollBars();
+    public interface OnPanMetricsListener {
+
+        void onPanMetrics(PanMetrics metrics);
+
     }
 
-    @Override
-    protected void onAttachedToWindow() {
-        super.onAttachedToWindow();
+    public interface OnListenerOverBudgetListener {
+
+        void onListenerOverBudget(OnPanChangedListener listener, long elapsedNanos);
 
-        // Splice views
-        splice();
     }
 
-    @Override
-    protected Parcelable onSaveInstanceState() {
-        // Create a stateful object based on super state
-        SavedState savedState = new SavedState(super.onSaveInstanceState());
+    public interface TileRenderer {
 
-        // Save pan position
-        savedState.panX = getPanX();
-        savedState.panY = getPanY();
+        int getContentWidth();
+
+        int getContentHeight();
+
+        void renderTile(Canvas canvas, Rect region, float scale);
 
-        return savedState;
     }
 
-    @Override
-    protected void onRestoreInstanceState(Parcelable state) {
-        // Check if state is ours
-        if (state instanceof SavedState) {
-            SavedState savedState = (SavedState) state;
+    public interface OnVisibleContentChangedListener {
 
-            // Pass on super state
-            super.onRestoreInstanceState(savedState.getSuperState());
+        void onVisibleContentChanged(Rect visibleRect);
 
-            // Restore pan position
-            setPanX(savedState.panX);
-            setPanY(savedState.panY);
-        } else {
-            // Not for us, pass it on
-            super.onRestoreInstanceState(state);
-        }
     }
 
-    private void splice() {
-        // Do not continue if already spliced
-        if (spliced) {
-            return;
-        }
+    public interface OnVirtualPanChangedListener {
 
-        // Splice scroll views between this view and its child
-        View child = getChildAt(0);
-        removeAllViews();
-        scrollViewY.addView(child);
-        scrollViewX.addView(scrollViewY);
-        super.addView(scrollViewX, 0, generateDefaultLayoutParams());
+        void onVirtualPanChanged(long x, long y, long oldX, long oldY);
 
-        // Add scrollbar lens
-        super.addView(scrollbarLens, 1, generateDefaultLayoutParams());
+    }
+
+    public interface OnVirtualOriginChangedListener {
+
+        void onVirtualOriginChanged(long originX, long originY);
 
-        // Set spliced flag
-        spliced = true;
     }
 
-    public interface OnPanChangedListener {
+    public interface OnLevelOfDetailChangedListener {
 
-        void onPanChanged(int l, int t, int oldl, int oldt);
+        void onLevelOfDetailChanged(float scale);
 
     }
 
-    public interface OnPanStoppedListener {
+    public interface TileProvider {
 
-        void onPanStopped();
+        int getContentWidth();
+
+        int getContentHeight();
+
+        int getTileWidth();
+
+        int getTileHeight();
+
+        View getTileView(int column, int row, View convertView, ViewGroup parent);
 
     }
 
@@ -806,6 +3634,8 @@ public class PanView extends FrameLayout {
 
         private int panX;
         private int panY;
+        private long virtualPanX;
+        private long virtualPanY;
 
         public SavedState(Parcel source) {
             super(source);
@@ -813,6 +3643,8 @@ public class PanView extends FrameLayout {
             // Read pan position
             panX = source.readInt();
             panY = source.readInt();
+            virtualPanX = source.readLong();
+            virtualPanY = source.readLong();
         }
 
         public SavedState(Parcelable superState) {
@@ -826,6 +3658,8 @@ public class PanView extends FrameLayout {
             // Write pan position
             out.writeInt(panX);
             out.writeInt(panY);
+            out.writeLong(virtualPanX);
+            out.writeLong(virtualPanY);
         }
 
         private final Creator<SavedState> CREATOR = new Creator<SavedState>() {
@@ -844,52 +3678,576 @@ public class PanView extends FrameLayout {
 
     }
 
-    public class ScrollbarLens extends ScrollView {
+    public class PanContainer extends FrameLayout {
+
+        private static final int INVALID_POINTER = -1;
+
+        private ScrollerCompat scroller;
+        private VelocityTracker velocityTracker;
+
+        // Logical pan the scroller counts from on a virtual canvas, as the window moves under it
+        private long scrollerBaseX;
+        private long scrollerBaseY;
+
+        private int minimumVelocity;
+        private int maximumVelocity;
+
+        private boolean isBeingDragged;
+        private int activePointerId;
+
+        private float lastMotionX;
+        private float lastMotionY;
+
+        private ScaleGestureDetector scaleGestureDetector;
+        private GestureDetector doubleTapDetector;
 
-        private ScrollbarLens(Context context) {
+        private PanContainer(Context context) {
             super(context);
 
-            // Use a transparent background, lest we forfeit our lensiness
-            setBackgroundColor(0);
+            // One scroller drives both axes
+            scroller = ScrollerCompat.create(context);
+
+            // Get system touch configuration
+            ViewConfiguration configuration = ViewConfiguration.get(context);
+            minimumVelocity = configuration.getScaledMinimumFlingVelocity();
+            maximumVelocity = configuration.getScaledMaximumFlingVelocity();
+
+            activePointerId = INVALID_POINTER;
+
+            // Pinch needs Froyo, double tap is always there
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.FROYO) {
+                scaleGestureDetector = createScaleGestureDetector(context);
+            }
+            doubleTapDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+
+                @Override
+                public boolean onDoubleTap(MotionEvent event) {
+                    // Toggle between no zoom and a fixed zoom in, about the tap
+                    smoothZoomTo(Math.abs(zoom - 1f) < 0.01f ? DOUBLE_TAP_ZOOM : 1f, event.getX(), event.getY());
+                    return true;
+                }
+
+            });
+        }
+
+        @TargetApi(Build.VERSION_CODES.FROYO)
+        private ScaleGestureDetector createScaleGestureDetector(Context context) {
+            return new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+
+                @Override
+                public boolean onScaleBegin(ScaleGestureDetector detector) {
+                    // Coarse levels until the pinch ends
+                    cancelZoomAnimation();
+                    beginZoom();
+
+                    // Keep ancestors from stealing the pinch
+                    if (getParent() != null) {
+                        getParent().requestDisallowInterceptTouchEvent(true);
+                    }
+
+                    return true;
+                }
+
+                @Override
+                public boolean onScale(ScaleGestureDetector detector) {
+                    applyZoom(zoom * detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                    return true;
+                }
+
+                @Override
+                public void onScaleEnd(ScaleGestureDetector detector) {
+                    // Refine now that the zoom settled
+                    endZoom();
+                }
+
+            });
+        }
 
-            // Enable horizontal scrollbar by default
-            setHorizontalScrollBarEnabled(true);
+        @TargetApi(Build.VERSION_CODES.FROYO)
+        private boolean isScaling() {
+            return scaleGestureDetector != null && scaleGestureDetector.isInProgress();
         }
 
         @Override
-        protected boolean awakenScrollBars() {
-            // Redefine to provide intra-PanView access
-            return super.awakenScrollBars();
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            // Fill the space given by PanView
+            setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec), getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec));
+
+            // Get child
+            View child = getChildAt(0);
+
+            // Sanity check
+            if (child == null || child.getVisibility() == GONE) {
+                return;
+            }
+
+            // A virtual canvas child is exactly the window onto the logical content
+            if (virtualCanvasEnabled) {
+                virtualAxisX.setViewportSize(getMeasuredWidth());
+                virtualAxisY.setViewportSize(getMeasuredHeight());
+
+                child.measure(MeasureSpec.makeMeasureSpec(virtualAxisX.getWindowSize(), MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(virtualAxisY.getWindowSize(), MeasureSpec.EXACTLY));
+                return;
+            }
+
+            LayoutParams layoutParams = (LayoutParams) child.getLayoutParams();
+
+            // Space available to the child within the viewport
+            int availableWidth = getMeasuredWidth() - layoutParams.leftMargin - layoutParams.rightMargin;
+            int availableHeight = getMeasuredHeight() - layoutParams.topMargin - layoutParams.bottomMargin;
+
+            measureContent(child, availableWidth, availableHeight);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            // Get child
+            View child = getChildAt(0);
+
+            // Place child at the content origin, scaled to the zoom
+            if (child != null && virtualCanvasEnabled) {
+                child.layout(0, 0, child.getMeasuredWidth(), child.getMeasuredHeight());
+            } else if (child != null) {
+                LayoutParams layoutParams = (LayoutParams) child.getLayoutParams();
+                child.layout(layoutParams.leftMargin, layoutParams.topMargin, layoutParams.leftMargin + child.getMeasuredWidth(), layoutParams.topMargin + child.getMeasuredHeight());
+
+                applyContentZoom(child);
+            }
+
+            // Keep pan position within the (possibly changed) content bounds, moving the window if it no longer fits
+            if (virtualCanvasEnabled) {
+                applyVirtualPan(getVirtualPanX(), getVirtualPanY());
+            } else {
+                scrollTo(getScrollX(), getScrollY());
+            }
+
+            // Content may have moved or been replaced
+            updateVisibleContentRect(true);
+        }
+
+        @Override
+        protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+            // Draw cached tiles in place of the child if enabled
+            if (isDrawingFromTiles()) {
+                drawCachedContent(canvas, child);
+                return false;
+            }
+
+            // Views cannot scale themselves before Honeycomb
+            if (zoom != 1f && Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+                canvas.save();
+                canvas.scale(zoom, zoom, child.getLeft(), child.getTop());
+                boolean more = super.drawChild(canvas, child, drawingTime);
+                canvas.restore();
+
+                return more;
+            }
+
+            return super.drawChild(canvas, child, drawingTime);
+        }
+
+        @Override
+        public void scrollTo(int x, int y) {
+            // Clamp to content bounds
+            super.scrollTo(Math.max(0, Math.min(x, getScrollRangeX())), Math.max(0, Math.min(y, getScrollRangeY())));
+        }
+
+        @Override
+        public void computeScroll() {
+            // Advance both axes by one frame
+            if (scroller.computeScrollOffset()) {
+                if (virtualCanvasEnabled) {
+                    applyVirtualPan(scrollerBaseX + scroller.getCurrX(), scrollerBaseY + scroller.getCurrY());
+                } else {
+                    scrollTo(scroller.getCurrX(), scroller.getCurrY());
+                }
+
+                // Keep animating
+                if (!awakenScrollBars()) {
+                    ViewCompat.postInvalidateOnAnimation(this);
+                }
+            }
         }
 
         @Override
-        protected int computeHorizontalScrollExtent() {
-            return getWidth();
+        public boolean dispatchTouchEvent(MotionEvent event) {
+            // Zoom gestures see every event, whoever ends up handling it
+            if (zoomEnabled && !virtualCanvasEnabled) {
+                if (scaleGestureDetector != null) {
+                    scaleGestureDetector.onTouchEvent(event);
+                }
+                doubleTapDetector.onTouchEvent(event);
+            }
+
+            // Classify the event exactly once for both the intercept and touch paths
+            gestureClassifier.classify(MotionEventCompat.getActionMasked(event), event.getX(), event.getY(), !scroller.isFinished());
+
+            return super.dispatchTouchEvent(event);
         }
 
         @Override
-        protected int computeHorizontalScrollOffset() {
-            return scrollViewX.getScrollX();
+        public boolean onInterceptTouchEvent(MotionEvent event) {
+            int action = MotionEventCompat.getActionMasked(event);
+
+            // Already panning, so keep the gesture
+            if (action == MotionEvent.ACTION_MOVE && isBeingDragged) {
+                return true;
+            }
+
+            // A pinch belongs to us
+            if (isScaling()) {
+                return true;
+            }
+
+            switch (action) {
+            case MotionEvent.ACTION_DOWN:
+                lastMotionX = event.getX();
+                lastMotionY = event.getY();
+                activePointerId = event.getPointerId(0);
+
+                initOrResetVelocityTracker();
+                velocityTracker.addMovement(event);
+
+                // Catch a running fling
+                isBeingDragged = gestureClassifier.isPanning();
+                break;
+            case MotionEvent.ACTION_MOVE:
+                int pointerIndex = event.findPointerIndex(activePointerId);
+
+                // Sanity check
+                if (pointerIndex == -1) {
+                    break;
+                }
+
+                // Start panning once the classifier says so
+                if (gestureClassifier.isPanning()) {
+                    startDrag(event.getX(pointerIndex), event.getY(pointerIndex));
+
+                    initVelocityTrackerIfNotExists();
+                    velocityTracker.addMovement(event);
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                onSecondaryPointerUp(event);
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                isBeingDragged = false;
+                activePointerId = INVALID_POINTER;
+                recycleVelocityTracker();
+                break;
+            }
+
+            return isBeingDragged;
         }
 
         @Override
-        protected int computeHorizontalScrollRange() {
-            return scrollViewY.getChildAt(0).getWidth();
+        public boolean onTouchEvent(MotionEvent event) {
+            initVelocityTrackerIfNotExists();
+            velocityTracker.addMovement(event);
+
+            switch (MotionEventCompat.getActionMasked(event)) {
+            case MotionEvent.ACTION_DOWN:
+                // Nothing to pan
+                if (getChildCount() == 0) {
+                    return false;
+                }
+
+                // Stop any fling in progress
+                if (!scroller.isFinished()) {
+                    scroller.abortAnimation();
+                }
+
+                lastMotionX = event.getX();
+                lastMotionY = event.getY();
+                activePointerId = event.getPointerId(0);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                int pointerIndex = event.findPointerIndex(activePointerId);
+
+                // Sanity check
+                if (pointerIndex == -1) {
+                    break;
+                }
+
+                float x = event.getX(pointerIndex);
+                float y = event.getY(pointerIndex);
+
+                // Start panning once the classifier says so
+                if (!isBeingDragged && gestureClassifier.isPanning()) {
+                    startDrag(x, y);
+                }
+
+                if (isScaling()) {
+                    // Follow the pointer without panning, so the pan resumes smoothly after the pinch
+                    lastMotionX = x;
+                    lastMotionY = y;
+                } else if (isBeingDragged) {
+                    // Whole pixels to move on each axis
+                    int deltaX = (int) (lastMotionX - x);
+                    int deltaY = (int) (lastMotionY - y);
+
+                    // A locked gesture leaves the other axis alone
+                    int lockedAxis = getLockedAxis();
+                    if (lockedAxis == AxisLock.AXIS_HORIZONTAL) {
+                        deltaY = 0;
+                    } else if (lockedAxis == AxisLock.AXIS_VERTICAL) {
+                        deltaX = 0;
+                    }
+
+                    // Keep fractional remainders for the next sample
+                    lastMotionX -= deltaX;
+                    lastMotionY -= deltaY;
+
+                    // Move both axes at once
+                    scrollTo(getScrollX() + deltaX, getScrollY() + deltaY);
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                int index = MotionEventCompat.getActionIndex(event);
+
+                // Follow the new pointer
+                lastMotionX = event.getX(index);
+                lastMotionY = event.getY(index);
+                activePointerId = event.getPointerId(index);
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                onSecondaryPointerUp(event);
+                break;
+            case MotionEvent.ACTION_UP:
+                if (isBeingDragged) {
+                    velocityTracker.computeCurrentVelocity(1000, maximumVelocity);
+
+                    int velocityX = (int) VelocityTrackerCompat.getXVelocity(velocityTracker, activePointerId);
+                    int velocityY = (int) VelocityTrackerCompat.getYVelocity(velocityTracker, activePointerId);
+
+                    // A locked gesture flings along its axis only
+                    int lockedAxis = getLockedAxis();
+                    if (lockedAxis == AxisLock.AXIS_HORIZONTAL) {
+                        velocityY = 0;
+                    } else if (lockedAxis == AxisLock.AXIS_VERTICAL) {
+                        velocityX = 0;
+                    }
+
+                    // Fling along the release direction if fast enough
+                    if (Math.hypot(velocityX, velocityY) > minimumVelocity) {
+                        fling(-velocityX, -velocityY);
+                    }
+                }
+
+                endDrag();
+                break;
+            case MotionEvent.ACTION_CANCEL:
+                endDrag();
+                break;
+            }
+
+            return true;
         }
 
         @Override
-        protected int computeVerticalScrollExtent() {
-            return getHeight();
+        protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+            super.onScrollChanged(l, t, oldl, oldt);
+
+            // Keep the real scroll near the middle of the window
+            if (virtualCanvasEnabled) {
+                rebaseVirtualCanvas();
+            }
+
+            // Drive pan state machine
+            onPanActivity(true);
+
+            // Notify listener(s) once for both axes
+            notifyPanChanged();
         }
 
         @Override
-        protected int computeVerticalScrollOffset() {
-            return scrollViewY.getScrollY();
+        protected boolean awakenScrollBars() {
+            // Called every frame while the scroller runs, so note activity for the settle check
+            onPanActivity(false);
+
+            // Redirect to scrollbar renderer
+            showScrollbars();
+
+            return super.awakenScrollBars();
+        }
+
+        public void fling(int velocityX, int velocityY) {
+            // Nothing to fling
+            if (getChildCount() == 0) {
+                return;
+            }
+
+            if (virtualCanvasEnabled) {
+                // Fling across the logical content, counting from where it starts
+                scrollerBaseX = getVirtualPanX();
+                scrollerBaseY = getVirtualPanY();
+                scroller.fling(0, 0, velocityX, velocityY, clampToInt(-scrollerBaseX), clampToInt(virtualAxisX.getRange() - scrollerBaseX), clampToInt(-scrollerBaseY), clampToInt(virtualAxisY.getRange() - scrollerBaseY));
+                ViewCompat.postInvalidateOnAnimation(this);
+
+                // Where it stops, relative to the window as it stands
+                onFlingStarted(velocityX, velocityY, clampToInt(scrollerBaseX + scroller.getFinalX() - virtualAxisX.getOrigin()), clampToInt(scrollerBaseY + scroller.getFinalY() - virtualAxisY.getOrigin()));
+                return;
+            }
+
+            // Fling both axes from a single start point and time base
+            scroller.fling(getScrollX(), getScrollY(), velocityX, velocityY, 0, getScrollRangeX(), 0, getScrollRangeY());
+            ViewCompat.postInvalidateOnAnimation(this);
+
+            // The scroller already knows where it will stop
+            onFlingStarted(velocityX, velocityY, scroller.getFinalX(), scroller.getFinalY());
+        }
+
+        public void smoothScrollTo(int x, int y) {
+            smoothScrollBy(x - getScrollX(), y - getScrollY());
+        }
+
+        public void smoothScrollBy(int dx, int dy) {
+            // Nothing to scroll
+            if (getChildCount() == 0) {
+                return;
+            }
+
+            if (virtualCanvasEnabled) {
+                // Scroll across the logical content, counting from where it starts
+                scrollerBaseX = getVirtualPanX();
+                scrollerBaseY = getVirtualPanY();
+
+                long x = Math.max(0, Math.min(scrollerBaseX + dx, virtualAxisX.getRange()));
+                long y = Math.max(0, Math.min(scrollerBaseY + dy, virtualAxisY.getRange()));
+
+                scroller.startScroll(0, 0, (int) (x - scrollerBaseX), (int) (y - scrollerBaseY));
+                ViewCompat.postInvalidateOnAnimation(this);
+                return;
+            }
+
+            // Clamp target to content bounds
+            int x = Math.max(0, Math.min(getScrollX() + dx, getScrollRangeX()));
+            int y = Math.max(0, Math.min(getScrollY() + dy, getScrollRangeY()));
+
+            scroller.startScroll(getScrollX(), getScrollY(), x - getScrollX(), y - getScrollY());
+            ViewCompat.postInvalidateOnAnimation(this);
+        }
+
+        private void abortScroll() {
+            if (!scroller.isFinished()) {
+                scroller.abortAnimation();
+            }
+        }
+
+        private int getScrollRangeX() {
+            // The window onto a virtual canvas
+            if (virtualCanvasEnabled) {
+                return Math.max(0, virtualAxisX.getWindowSize() - getWidth());
+            }
+
+            // Get child
+            View child = getChildAt(0);
+
+            // No child, no range
+            if (child == null) {
+                return 0;
+            }
+
+            LayoutParams layoutParams = (LayoutParams) child.getLayoutParams();
+            return Math.max(0, layoutParams.leftMargin + (int) Math.ceil(child.getWidth() * zoom) + layoutParams.rightMargin - getWidth());
+        }
+
+        private int getScrollRangeY() {
+            // The window onto a virtual canvas
+            if (virtualCanvasEnabled) {
+                return Math.max(0, virtualAxisY.getWindowSize() - getHeight());
+            }
+
+            // Get child
+            View child = getChildAt(0);
+
+            // No child, no range
+            if (child == null) {
+                return 0;
+            }
+
+            LayoutParams layoutParams = (LayoutParams) child.getLayoutParams();
+            return Math.max(0, layoutParams.topMargin + (int) Math.ceil(child.getHeight() * zoom) + layoutParams.bottomMargin - getHeight());
+        }
+
+        private void onSecondaryPointerUp(MotionEvent event) {
+            int pointerIndex = MotionEventCompat.getActionIndex(event);
+
+            // If the active pointer went up, pick a new one
+            if (event.getPointerId(pointerIndex) == activePointerId) {
+                int newPointerIndex = pointerIndex == 0 ? 1 : 0;
+
+                lastMotionX = event.getX(newPointerIndex);
+                lastMotionY = event.getY(newPointerIndex);
+                activePointerId = event.getPointerId(newPointerIndex);
+
+                if (velocityTracker != null) {
+                    velocityTracker.clear();
+                }
+            }
+        }
+
+        private void startDrag(float x, float y) {
+            isBeingDragged = true;
+            lastMotionX = x;
+            lastMotionY = y;
+
+            // Keep ancestors from stealing the pan
+            if (getParent() != null) {
+                getParent().requestDisallowInterceptTouchEvent(true);
+            }
+        }
+
+        private void endDrag() {
+            isBeingDragged = false;
+            activePointerId = INVALID_POINTER;
+            recycleVelocityTracker();
+        }
+
+        private void initOrResetVelocityTracker() {
+            if (velocityTracker == null) {
+                velocityTracker = VelocityTracker.obtain();
+            } else {
+                velocityTracker.clear();
+            }
+        }
+
+        private void initVelocityTrackerIfNotExists() {
+            if (velocityTracker == null) {
+                velocityTracker = VelocityTracker.obtain();
+            }
+        }
+
+        private void recycleVelocityTracker() {
+            if (velocityTracker != null) {
+                velocityTracker.recycle();
+                velocityTracker = null;
+            }
+        }
+
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class MetricsFrameCallback implements Choreographer.FrameCallback {
+
+        private final PanView panView;
+
+        MetricsFrameCallback(PanView panView) {
+            this.panView = panView;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void cancel() {
+            Choreographer.getInstance().removeFrameCallback(this);
         }
 
         @Override
-        protected int computeVerticalScrollRange() {
-            return scrollViewY.getChildAt(0).getHeight();
+        public void doFrame(long frameTimeNanos) {
+            panView.onMetricsFrame(frameTimeNanos);
         }
 
     }
@@ -0,0 +1,116 @@
+package com.gmail.tylerfilla.widget.panview;
+
+final class PrefetchPlanner {
+
+    private boolean flinging;
+
+    private int velocityX;
+    private int velocityY;
+
+    // Predicted pan position once the fling settles
+    private int finalX;
+    private int finalY;
+
+    // Whether the content lets us tell when the landing viewport is ready
+    private boolean landingTracked;
+    private boolean landingReady;
+
+    private int flingCount;
+    private int landingTrackedCount;
+    private int landingReadyCount;
+
+    boolean isFlinging() {
+        return flinging;
+    }
+
+    int getVelocityX() {
+        return velocityX;
+    }
+
+    int getVelocityY() {
+        return velocityY;
+    }
+
+    int getFinalX() {
+        return finalX;
+    }
+
+    int getFinalY() {
+        return finalY;
+    }
+
+    int getDirectionX() {
+        return Integer.signum(velocityX);
+    }
+
+    int getDirectionY() {
+        return Integer.signum(velocityY);
+    }
+
+    boolean isLandingTracked() {
+        return landingTracked;
+    }
+
+    boolean isLandingReady() {
+        return landingReady;
+    }
+
+    int getFlingCount() {
+        return flingCount;
+    }
+
+    int getLandingTrackedCount() {
+        return landingTrackedCount;
+    }
+
+    int getLandingReadyCount() {
+        return landingReadyCount;
+    }
+
+    void startFling(int velocityX, int velocityY, int finalX, int finalY) {
+        // A fling updated mid-flight (e.g. one axis at a time) is still the same fling
+        if (!flinging) {
+            flinging = true;
+            landingTracked = false;
+            landingReady = false;
+
+            flingCount++;
+        }
+
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        this.finalX = finalX;
+        this.finalY = finalY;
+    }
+
+    void markLandingTracked() {
+        landingTracked = true;
+    }
+
+    void markLandingReady() {
+        landingTracked = true;
+        landingReady = true;
+    }
+
+    void endFling() {
+        // Nothing in flight
+        if (!flinging) {
+            return;
+        }
+
+        flinging = false;
+
+        // Count whether the landing viewport made it in time, where that could be told
+        if (landingTracked) {
+            landingTrackedCount++;
+
+            if (landingReady) {
+                landingReadyCount++;
+            }
+        }
+
+        velocityX = 0;
+        velocityY = 0;
+    }
+
+}
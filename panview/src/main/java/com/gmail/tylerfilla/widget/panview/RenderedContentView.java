@@ -0,0 +1,35 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.content.Context;
+import android.view.View;
+
+final class RenderedContentView extends View {
+
+    private PanView.TileRenderer tileRenderer;
+
+    RenderedContentView(Context context) {
+        super(context);
+    }
+
+    PanView.TileRenderer getTileRenderer() {
+        return tileRenderer;
+    }
+
+    void setTileRenderer(PanView.TileRenderer tileRenderer) {
+        this.tileRenderer = tileRenderer;
+
+        // Content size is declared by the renderer
+        requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Declared, never measured from content (drawing happens in tiles)
+        if (tileRenderer == null) {
+            setMeasuredDimension(0, 0);
+        } else {
+            setMeasuredDimension(tileRenderer.getContentWidth(), tileRenderer.getContentHeight());
+        }
+    }
+
+}
@@ -0,0 +1,341 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.animation.AnimationUtils;
+
+final class ScrollbarRenderer implements Runnable {
+
+    // Theme attributes for the platform look (sorted, as obtainStyledAttributes requires)
+    private static final int[] THEME_ATTRS = {
+            android.R.attr.scrollbarThumbHorizontal,
+            android.R.attr.scrollbarThumbVertical,
+            android.R.attr.scrollbarTrackHorizontal,
+            android.R.attr.scrollbarTrackVertical,
+    };
+
+    private static final int OPAQUE = 255;
+
+    private final View host;
+
+    private Drawable horizontalThumb;
+    private Drawable verticalThumb;
+    private Drawable horizontalTrack;
+    private Drawable verticalTrack;
+
+    private boolean horizontalEnabled;
+    private boolean verticalEnabled;
+
+    private boolean fadingEnabled;
+    private int defaultDelayBeforeFade;
+    private int fadeDuration;
+    private int size;
+    private int style;
+
+    // Scroll state last given to us
+    private int offsetX;
+    private int rangeX;
+    private int extentX;
+    private int offsetY;
+    private int rangeY;
+    private int extentY;
+
+    // Where the bars are drawn (empty while hidden)
+    private final Rect horizontalTrackBounds;
+    private final Rect horizontalThumbBounds;
+    private final Rect verticalTrackBounds;
+    private final Rect verticalThumbBounds;
+
+    // Scratch for invalidating old and new bounds at once
+    private final Rect dirty;
+
+    private int alpha;
+    private long fadeStartTime;
+    private boolean fadeScheduled;
+
+    ScrollbarRenderer(View host) {
+        this.host = host;
+
+        Context context = host.getContext();
+
+        // Platform look and timing by default
+        TypedArray styledAttrs = context.getTheme().obtainStyledAttributes(THEME_ATTRS);
+        horizontalThumb = mutate(styledAttrs.getDrawable(0));
+        verticalThumb = mutate(styledAttrs.getDrawable(1));
+        horizontalTrack = mutate(styledAttrs.getDrawable(2));
+        verticalTrack = mutate(styledAttrs.getDrawable(3));
+        styledAttrs.recycle();
+
+        fadingEnabled = true;
+        defaultDelayBeforeFade = ViewConfiguration.getScrollDefaultDelay();
+        fadeDuration = ViewConfiguration.getScrollBarFadeDuration();
+        size = ViewConfiguration.get(context).getScaledScrollBarSize();
+        style = View.SCROLLBARS_INSIDE_OVERLAY;
+
+        horizontalTrackBounds = new Rect();
+        horizontalThumbBounds = new Rect();
+        verticalTrackBounds = new Rect();
+        verticalThumbBounds = new Rect();
+        dirty = new Rect();
+
+        // Hidden until first awakened
+        alpha = 0;
+    }
+
+    boolean isHorizontalEnabled() {
+        return horizontalEnabled;
+    }
+
+    void setHorizontalEnabled(boolean horizontalEnabled) {
+        this.horizontalEnabled = horizontalEnabled;
+
+        updateBounds();
+    }
+
+    boolean isVerticalEnabled() {
+        return verticalEnabled;
+    }
+
+    void setVerticalEnabled(boolean verticalEnabled) {
+        this.verticalEnabled = verticalEnabled;
+
+        updateBounds();
+    }
+
+    boolean isFadingEnabled() {
+        return fadingEnabled;
+    }
+
+    void setFadingEnabled(boolean fadingEnabled) {
+        this.fadingEnabled = fadingEnabled;
+
+        // Bars stay up for good without fading
+        if (!fadingEnabled) {
+            cancelFade();
+            setAlpha(OPAQUE);
+        }
+    }
+
+    int getDefaultDelayBeforeFade() {
+        return defaultDelayBeforeFade;
+    }
+
+    void setDefaultDelayBeforeFade(int defaultDelayBeforeFade) {
+        this.defaultDelayBeforeFade = defaultDelayBeforeFade;
+    }
+
+    int getFadeDuration() {
+        return fadeDuration;
+    }
+
+    void setFadeDuration(int fadeDuration) {
+        this.fadeDuration = fadeDuration;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    void setSize(int size) {
+        this.size = size;
+
+        updateBounds();
+    }
+
+    int getStyle() {
+        return style;
+    }
+
+    void setStyle(int style) {
+        this.style = style;
+
+        updateBounds();
+    }
+
+    void setHorizontalThumbDrawable(Drawable drawable) {
+        horizontalThumb = mutate(drawable);
+        invalidateBounds();
+    }
+
+    void setVerticalThumbDrawable(Drawable drawable) {
+        verticalThumb = mutate(drawable);
+        invalidateBounds();
+    }
+
+    void setHorizontalTrackDrawable(Drawable drawable) {
+        horizontalTrack = mutate(drawable);
+        invalidateBounds();
+    }
+
+    void setVerticalTrackDrawable(Drawable drawable) {
+        verticalTrack = mutate(drawable);
+        invalidateBounds();
+    }
+
+    void setScroll(int offsetX, int rangeX, int extentX, int offsetY, int rangeY, int extentY) {
+        this.offsetX = offsetX;
+        this.rangeX = rangeX;
+        this.extentX = extentX;
+        this.offsetY = offsetY;
+        this.rangeY = rangeY;
+        this.extentY = extentY;
+
+        updateBounds();
+    }
+
+    boolean awaken() {
+        // Nothing to show
+        if (horizontalThumbBounds.isEmpty() && verticalThumbBounds.isEmpty()) {
+            return false;
+        }
+
+        setAlpha(OPAQUE);
+
+        // Restart the countdown to the fade
+        if (fadingEnabled) {
+            cancelFade();
+
+            fadeStartTime = AnimationUtils.currentAnimationTimeMillis() + defaultDelayBeforeFade;
+            host.postDelayed(this, defaultDelayBeforeFade);
+            fadeScheduled = true;
+        }
+
+        return true;
+    }
+
+    void cancelFade() {
+        // One runnable animates both bars, so there is only one thing to stop
+        if (fadeScheduled) {
+            host.removeCallbacks(this);
+            fadeScheduled = false;
+        }
+    }
+
+    void draw(Canvas canvas) {
+        // Faded out
+        if (alpha == 0) {
+            return;
+        }
+
+        drawBar(canvas, horizontalTrack, horizontalTrackBounds);
+        drawBar(canvas, horizontalThumb, horizontalThumbBounds);
+        drawBar(canvas, verticalTrack, verticalTrackBounds);
+        drawBar(canvas, verticalThumb, verticalThumbBounds);
+    }
+
+    @Override
+    public void run() {
+        // Fraction of the fade elapsed
+        float t = fadeDuration <= 0 ? 1f : (float) (AnimationUtils.currentAnimationTimeMillis() - fadeStartTime) / fadeDuration;
+
+        if (t >= 1f) {
+            fadeScheduled = false;
+            setAlpha(0);
+        } else {
+            setAlpha((int) (OPAQUE * (1f - Math.max(0f, t))));
+            ViewCompat.postOnAnimation(host, this);
+        }
+    }
+
+    private void drawBar(Canvas canvas, Drawable drawable, Rect bounds) {
+        // Missing drawable or hidden bar
+        if (drawable == null || bounds.isEmpty()) {
+            return;
+        }
+
+        drawable.setBounds(bounds);
+        drawable.setAlpha(alpha);
+        drawable.draw(canvas);
+    }
+
+    private void setAlpha(int alpha) {
+        // Ignore non-changes
+        if (alpha == this.alpha) {
+            return;
+        }
+
+        this.alpha = alpha;
+        invalidateBounds();
+    }
+
+    private void updateBounds() {
+        // Inside styles keep clear of the padding
+        boolean inside = style == View.SCROLLBARS_INSIDE_OVERLAY || style == View.SCROLLBARS_INSIDE_INSET;
+        int left = inside ? host.getPaddingLeft() : 0;
+        int top = inside ? host.getPaddingTop() : 0;
+        int right = host.getWidth() - (inside ? host.getPaddingRight() : 0);
+        int bottom = host.getHeight() - (inside ? host.getPaddingBottom() : 0);
+
+        // Only shown when there is somewhere to pan
+        boolean showHorizontal = horizontalEnabled && rangeX > extentX;
+        boolean showVertical = verticalEnabled && rangeY > extentY;
+
+        // Remember where the bars were
+        dirty.setEmpty();
+        dirty.union(horizontalTrackBounds);
+        dirty.union(verticalTrackBounds);
+
+        if (showHorizontal) {
+            // Along the bottom, leaving the corner to a vertical bar
+            horizontalTrackBounds.set(left, bottom - size, showVertical ? right - size : right, bottom);
+            layoutThumb(horizontalThumbBounds, horizontalTrackBounds, offsetX, rangeX, extentX, true);
+        } else {
+            horizontalTrackBounds.setEmpty();
+            horizontalThumbBounds.setEmpty();
+        }
+
+        if (showVertical) {
+            // Along the right edge
+            verticalTrackBounds.set(right - size, top, right, showHorizontal ? bottom - size : bottom);
+            layoutThumb(verticalThumbBounds, verticalTrackBounds, offsetY, rangeY, extentY, false);
+        } else {
+            verticalTrackBounds.setEmpty();
+            verticalThumbBounds.setEmpty();
+        }
+
+        // Redraw only where bars were or are now
+        if (alpha != 0) {
+            dirty.union(horizontalTrackBounds);
+            dirty.union(verticalTrackBounds);
+
+            if (!dirty.isEmpty()) {
+                host.invalidate(dirty);
+            }
+        }
+    }
+
+    private void layoutThumb(Rect thumb, Rect track, int offset, int range, int extent, boolean horizontal) {
+        int trackLength = horizontal ? track.width() : track.height();
+
+        // Proportional to the visible fraction, but never shorter than twice the thickness
+        int thumbLength = Math.min(trackLength, Math.max(2 * size, (int) ((long) trackLength * extent / range)));
+        int thumbOffset = (int) ((long) (trackLength - thumbLength) * Math.max(0, Math.min(offset, range - extent)) / (range - extent));
+
+        if (horizontal) {
+            thumb.set(track.left + thumbOffset, track.top, track.left + thumbOffset + thumbLength, track.bottom);
+        } else {
+            thumb.set(track.left, track.top + thumbOffset, track.right, track.top + thumbOffset + thumbLength);
+        }
+    }
+
+    private void invalidateBounds() {
+        dirty.set(horizontalTrackBounds);
+        dirty.union(verticalTrackBounds);
+
+        if (!dirty.isEmpty()) {
+            host.invalidate(dirty);
+        }
+    }
+
+    private static Drawable mutate(Drawable drawable) {
+        // Alpha is set per frame, so do not share state with other users of the drawable
+        return drawable == null ? null : drawable.mutate();
+    }
+
+}
@@ -0,0 +1,289 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+final class SpatialGrid<T> {
+
+    // Items spanning more cells than this are kept aside and checked directly
+    private static final int MAX_CELLS_PER_ITEM = 64;
+
+    // Items that would stretch the grid past this many cells are kept aside too
+    private static final int MAX_CELLS = 1 << 20;
+
+    private final int cellSize;
+
+    private final HashMap<T, Entry<T>> entries;
+    private final ArrayList<Entry<T>> oversized;
+
+    // Row by row over the columns and rows linked so far, so a lookup is an index
+    private ArrayList<Entry<T>>[] cells;
+    private int cellFirstColumn;
+    private int cellFirstRow;
+    private int cellColumns;
+    private int cellRows;
+
+    // Bumped by each sweep, so entries not seen since can be dropped
+    private int generation;
+
+    SpatialGrid(int cellSize) {
+        this.cellSize = cellSize;
+
+        entries = new HashMap<>();
+        oversized = new ArrayList<>();
+    }
+
+    int getCellSize() {
+        return cellSize;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void beginSweep() {
+        generation++;
+    }
+
+    void put(T item, int order, int left, int top, int right, int bottom) {
+        Entry<T> entry = entries.get(item);
+
+        if (entry == null) {
+            entry = new Entry<>(item);
+            entries.put(item, entry);
+        } else if (entry.left == left && entry.top == top && entry.right == right && entry.bottom == bottom) {
+            // Same place, so only the stacking order may have changed
+            entry.order = order;
+            entry.generation = generation;
+            return;
+        } else {
+            unlink(entry);
+        }
+
+        entry.order = order;
+        entry.generation = generation;
+        entry.left = left;
+        entry.top = top;
+        entry.right = right;
+        entry.bottom = bottom;
+
+        link(entry);
+    }
+
+    void remove(T item) {
+        Entry<T> entry = entries.remove(item);
+
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    void endSweep() {
+        // Drop whatever the sweep did not put
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<T> entry = iterator.next();
+
+            if (entry.generation != generation) {
+                unlink(entry);
+                iterator.remove();
+            }
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        oversized.clear();
+
+        cells = null;
+        cellColumns = 0;
+        cellRows = 0;
+    }
+
+    T find(int x, int y) {
+        Entry<T> best = null;
+
+        // Topmost candidate in the cell under the point
+        ArrayList<Entry<T>> cell = getCell(floorDiv(x, cellSize), floorDiv(y, cellSize));
+        if (cell != null) {
+            best = findIn(cell, x, y, best);
+        }
+
+        best = findIn(oversized, x, y, best);
+
+        return best == null ? null : best.item;
+    }
+
+    private void link(Entry<T> entry) {
+        // Empty items can never be hit
+        if (entry.right <= entry.left || entry.bottom <= entry.top) {
+            entry.oversized = false;
+            entry.firstColumn = 0;
+            entry.lastColumn = -1;
+            return;
+        }
+
+        entry.firstColumn = floorDiv(entry.left, cellSize);
+        entry.lastColumn = floorDiv(entry.right - 1, cellSize);
+        entry.firstRow = floorDiv(entry.top, cellSize);
+        entry.lastRow = floorDiv(entry.bottom - 1, cellSize);
+
+        // Too big to be worth spreading over the grid
+        long cellCount = (long) (entry.lastColumn - entry.firstColumn + 1) * (entry.lastRow - entry.firstRow + 1);
+        entry.oversized = cellCount > MAX_CELLS_PER_ITEM || !coverCells(entry.firstColumn, entry.firstRow, entry.lastColumn, entry.lastRow);
+        if (entry.oversized) {
+            oversized.add(entry);
+            return;
+        }
+
+        for (int row = entry.firstRow; row <= entry.lastRow; row++) {
+            int index = (row - cellFirstRow) * cellColumns + (entry.firstColumn - cellFirstColumn);
+
+            for (int column = entry.firstColumn; column <= entry.lastColumn; column++, index++) {
+                ArrayList<Entry<T>> cell = cells[index];
+                if (cell == null) {
+                    cell = new ArrayList<>(4);
+                    cells[index] = cell;
+                }
+
+                cell.add(entry);
+            }
+        }
+    }
+
+    private void unlink(Entry<T> entry) {
+        if (entry.oversized) {
+            oversized.remove(entry);
+            return;
+        }
+
+        // Emptied cells stay, as something is likely to be linked there again
+        for (int row = entry.firstRow; row <= entry.lastRow; row++) {
+            for (int column = entry.firstColumn; column <= entry.lastColumn; column++) {
+                ArrayList<Entry<T>> cell = getCell(column, row);
+                if (cell != null) {
+                    cell.remove(entry);
+                }
+            }
+        }
+    }
+
+    private ArrayList<Entry<T>> getCell(int column, int row) {
+        column -= cellFirstColumn;
+        row -= cellFirstRow;
+
+        // Nothing has been linked out there
+        if (column < 0 || column >= cellColumns || row < 0 || row >= cellRows) {
+            return null;
+        }
+
+        return cells[row * cellColumns + column];
+    }
+
+    private boolean coverCells(int firstColumn, int firstRow, int lastColumn, int lastRow) {
+        int oldLastColumn = cellFirstColumn + cellColumns - 1;
+        int oldLastRow = cellFirstRow + cellRows - 1;
+
+        // Already in range
+        if (cells != null && firstColumn >= cellFirstColumn && lastColumn <= oldLastColumn && firstRow >= cellFirstRow && lastRow <= oldLastRow) {
+            return true;
+        }
+
+        // Take in what is already there
+        if (cells != null) {
+            firstColumn = Math.min(firstColumn, cellFirstColumn);
+            lastColumn = Math.max(lastColumn, oldLastColumn);
+            firstRow = Math.min(firstRow, cellFirstRow);
+            lastRow = Math.max(lastRow, oldLastRow);
+        }
+
+        long columns = (long) lastColumn - firstColumn + 1;
+        long rows = (long) lastRow - firstRow + 1;
+        if (columns * rows > MAX_CELLS) {
+            return false;
+        }
+
+        // Grow by half again toward each side that grew, so linking outward is not a copy per item
+        if (cells != null) {
+            long grownFirstColumn = firstColumn - (firstColumn < cellFirstColumn ? columns / 2 : 0);
+            long grownLastColumn = lastColumn + (lastColumn > oldLastColumn ? columns / 2 : 0);
+            long grownFirstRow = firstRow - (firstRow < cellFirstRow ? rows / 2 : 0);
+            long grownLastRow = lastRow + (lastRow > oldLastRow ? rows / 2 : 0);
+
+            long grownColumns = grownLastColumn - grownFirstColumn + 1;
+            long grownRows = grownLastRow - grownFirstRow + 1;
+            if (grownColumns * grownRows <= MAX_CELLS && grownFirstColumn >= Integer.MIN_VALUE && grownLastColumn <= Integer.MAX_VALUE
+                    && grownFirstRow >= Integer.MIN_VALUE && grownLastRow <= Integer.MAX_VALUE) {
+                firstColumn = (int) grownFirstColumn;
+                firstRow = (int) grownFirstRow;
+                columns = grownColumns;
+                rows = grownRows;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        ArrayList<Entry<T>>[] grown = new ArrayList[(int) (columns * rows)];
+
+        // Move the old rows over to their new places
+        if (cells != null) {
+            for (int row = 0; row < cellRows; row++) {
+                int from = row * cellColumns;
+                int to = (row + cellFirstRow - firstRow) * (int) columns + (cellFirstColumn - firstColumn);
+                System.arraycopy(cells, from, grown, to, cellColumns);
+            }
+        }
+
+        cells = grown;
+        cellFirstColumn = firstColumn;
+        cellFirstRow = firstRow;
+        cellColumns = (int) columns;
+        cellRows = (int) rows;
+
+        return true;
+    }
+
+    private static <T> Entry<T> findIn(ArrayList<Entry<T>> candidates, int x, int y, Entry<T> best) {
+        for (int i = 0; i < candidates.size(); i++) {
+            Entry<T> entry = candidates.get(i);
+
+            if (x >= entry.left && x < entry.right && y >= entry.top && y < entry.bottom && (best == null || entry.order > best.order)) {
+                best = entry;
+            }
+        }
+
+        return best;
+    }
+
+    private static int floorDiv(int a, int b) {
+        // Round toward negative infinity, so cells tile negative coordinates too
+        int quotient = a / b;
+        return (a % b != 0 && (a ^ b) < 0) ? quotient - 1 : quotient;
+    }
+
+    private static final class Entry<T> {
+
+        final T item;
+
+        int order;
+        int generation;
+
+        int left;
+        int top;
+        int right;
+        int bottom;
+
+        // Cells the entry is linked into (unless oversized)
+        boolean oversized;
+        int firstColumn;
+        int lastColumn;
+        int firstRow;
+        int lastRow;
+
+        Entry(T item) {
+            this.item = item;
+        }
+
+    }
+
+}
@@ -0,0 +1,245 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class TileCache {
+
+    private static final int MAX_FREE_BITMAPS = 16;
+
+    private final int tileSize;
+
+    private final BitmapPool bitmapPool;
+
+    // Access ordered, so iteration starts at the least recently used tile
+    private final LinkedHashMap<TileKey, Bitmap> tiles;
+
+    // Reused for lookups so hits allocate nothing
+    private final TileKey lookupKey;
+
+    private int size;
+    private int maxSize;
+
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    private int contentVersion;
+
+    TileCache(int tileSize, int maxSize) {
+        this.tileSize = tileSize;
+        this.maxSize = maxSize;
+
+        bitmapPool = new BitmapPool(MAX_FREE_BITMAPS);
+        tiles = new LinkedHashMap<>(16, 0.75f, true);
+        lookupKey = new TileKey();
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public int getMissCount() {
+        return missCount;
+    }
+
+    public int getEvictionCount() {
+        return evictionCount;
+    }
+
+    int getContentVersion() {
+        return contentVersion;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+
+        trimToSize(maxSize);
+    }
+
+    Bitmap get(int level, int column, int row) {
+        lookupKey.set(level, column, row, contentVersion);
+        Bitmap bitmap = tiles.get(lookupKey);
+
+        if (bitmap == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+
+        return bitmap;
+    }
+
+    Bitmap peek(int level, int column, int row) {
+        // Not counted, as stand-in lookups are not real hits or misses
+        lookupKey.set(level, column, row, contentVersion);
+        return tiles.get(lookupKey);
+    }
+
+    boolean contains(int level, int column, int row) {
+        // Neither counted nor touching the access order
+        lookupKey.set(level, column, row, contentVersion);
+        return tiles.containsKey(lookupKey);
+    }
+
+    void put(int level, int column, int row, Bitmap bitmap) {
+        TileKey key = new TileKey();
+        key.set(level, column, row, contentVersion);
+
+        Bitmap previous = tiles.put(key, bitmap);
+        size += sizeOf(bitmap);
+
+        // Replaced tile goes back to the pool
+        if (previous != null) {
+            size -= sizeOf(previous);
+
+            if (previous != bitmap) {
+                bitmapPool.release(previous);
+            }
+        }
+
+        trimToSize(maxSize);
+    }
+
+    void remove(int level, int column, int row) {
+        lookupKey.set(level, column, row, contentVersion);
+        Bitmap previous = tiles.remove(lookupKey);
+
+        if (previous != null) {
+            size -= sizeOf(previous);
+            bitmapPool.release(previous);
+        }
+    }
+
+    void remove(Rect region) {
+        // Walk the cache rather than the region, which may span far more tiles than are cached
+        Iterator<Map.Entry<TileKey, Bitmap>> iterator = tiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<TileKey, Bitmap> entry = iterator.next();
+            TileKey key = entry.getKey();
+
+            if (intersects(key.level, key.column, key.row, region)) {
+                iterator.remove();
+
+                size -= sizeOf(entry.getValue());
+                bitmapPool.release(entry.getValue());
+            }
+        }
+    }
+
+    boolean intersects(int level, int column, int row, Rect region) {
+        // Content covered by the tile, against a region in content coordinates
+        float span = tileSize / getLevelScale(level);
+        return column * span < region.right && (column + 1) * span > region.left && row * span < region.bottom && (row + 1) * span > region.top;
+    }
+
+    Bitmap acquireBitmap() {
+        return bitmapPool.acquire(tileSize, tileSize);
+    }
+
+    void releaseBitmap(Bitmap bitmap) {
+        bitmapPool.release(bitmap);
+    }
+
+    void invalidate() {
+        // New version, so no old tile can be hit again
+        contentVersion++;
+        evictAll();
+    }
+
+    void clear() {
+        evictAll();
+        bitmapPool.clear();
+    }
+
+    private void evictAll() {
+        // Explicit removal, so not counted as evictions
+        for (Bitmap bitmap : tiles.values()) {
+            bitmapPool.release(bitmap);
+        }
+
+        tiles.clear();
+        size = 0;
+    }
+
+    private void trimToSize(int maxSize) {
+        // Already within budget
+        if (size <= maxSize) {
+            return;
+        }
+
+        // Evict least recently used tiles until within budget
+        Iterator<Map.Entry<TileKey, Bitmap>> iterator = tiles.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Bitmap bitmap = iterator.next().getValue();
+            iterator.remove();
+
+            size -= sizeOf(bitmap);
+            evictionCount++;
+
+            bitmapPool.release(bitmap);
+        }
+    }
+
+    static float getLevelScale(int level) {
+        // Each level halves the resolution of the one below it
+        return level >= 0 ? 1f / (1 << level) : (float) (1 << -level);
+    }
+
+    private static int sizeOf(Bitmap bitmap) {
+        // Budget is in bytes
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    private static final class TileKey {
+
+        private int level;
+        private int column;
+        private int row;
+        private int version;
+
+        private void set(int level, int column, int row, int version) {
+            this.level = level;
+            this.column = column;
+            this.row = row;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof TileKey)) {
+                return false;
+            }
+
+            TileKey other = (TileKey) o;
+            return level == other.level && column == other.column && row == other.row && version == other.version;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * level + column) + row) + version;
+        }
+
+    }
+
+}
@@ -0,0 +1,256 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+
+final class TileLayer extends ViewGroup {
+
+    private PanView.TileProvider tileProvider;
+
+    private int tileMargin;
+
+    // Inclusive range of tiles currently attached (empty while first > last)
+    private int firstColumn;
+    private int lastColumn;
+    private int firstRow;
+    private int lastRow;
+
+    // Viewport last given to us, in content coordinates
+    private int viewportLeft;
+    private int viewportTop;
+    private int viewportWidth;
+    private int viewportHeight;
+
+    // Direction of a fling in progress, if any (-1, 0, or 1 per axis)
+    private int motionX;
+    private int motionY;
+
+    // Detached tiles awaiting reuse
+    private ArrayList<View> scrapTiles;
+
+    TileLayer(Context context) {
+        super(context);
+
+        scrapTiles = new ArrayList<>();
+
+        clearRange();
+    }
+
+    PanView.TileProvider getTileProvider() {
+        return tileProvider;
+    }
+
+    void setTileProvider(PanView.TileProvider tileProvider) {
+        this.tileProvider = tileProvider;
+
+        // Old tiles belong to the old provider
+        removeAllTiles();
+        scrapTiles.clear();
+
+        // Content size is declared by the provider
+        requestLayout();
+    }
+
+    int getTileMargin() {
+        return tileMargin;
+    }
+
+    void setTileMargin(int tileMargin) {
+        this.tileMargin = tileMargin;
+
+        updateTiles();
+    }
+
+    void notifyTilesChanged() {
+        // Rebind every tile on the next update, reusing the current views
+        removeAllTiles();
+        requestLayout();
+    }
+
+    void setViewport(int left, int top, int width, int height) {
+        viewportLeft = left;
+        viewportTop = top;
+        viewportWidth = width;
+        viewportHeight = height;
+
+        updateTiles();
+    }
+
+    void setMotion(int motionX, int motionY) {
+        this.motionX = motionX;
+        this.motionY = motionY;
+
+        updateTiles();
+    }
+
+    boolean isBound(Rect rect) {
+        // Nothing bound
+        if (tileProvider == null || firstColumn > lastColumn || firstRow > lastRow) {
+            return false;
+        }
+
+        int tileWidth = tileProvider.getTileWidth();
+        int tileHeight = tileProvider.getTileHeight();
+
+        // Every tile intersecting the region is attached
+        return rect.left / tileWidth >= firstColumn && (rect.right - 1) / tileWidth <= lastColumn && rect.top / tileHeight >= firstRow && (rect.bottom - 1) / tileHeight <= lastRow;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Declared, never measured from content
+        if (tileProvider == null) {
+            setMeasuredDimension(0, 0);
+        } else {
+            setMeasuredDimension(tileProvider.getContentWidth(), tileProvider.getContentHeight());
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        // Tiles place themselves as they are bound
+        updateTiles();
+    }
+
+    private void updateTiles() {
+        // Nothing to show
+        if (tileProvider == null || viewportWidth <= 0 || viewportHeight <= 0) {
+            removeAllTiles();
+            return;
+        }
+
+        int tileWidth = tileProvider.getTileWidth();
+        int tileHeight = tileProvider.getTileHeight();
+
+        int columnCount = (tileProvider.getContentWidth() + tileWidth - 1) / tileWidth;
+        int rowCount = (tileProvider.getContentHeight() + tileHeight - 1) / tileHeight;
+
+        // Margin doubles ahead of a fling
+        int marginLeft = motionX < 0 ? 2 * tileMargin : tileMargin;
+        int marginRight = motionX > 0 ? 2 * tileMargin : tileMargin;
+        int marginTop = motionY < 0 ? 2 * tileMargin : tileMargin;
+        int marginBottom = motionY > 0 ? 2 * tileMargin : tileMargin;
+
+        // Tiles intersecting the viewport plus margin
+        int newFirstColumn = Math.max(0, (viewportLeft - marginLeft) / tileWidth);
+        int newLastColumn = Math.min(columnCount - 1, (viewportLeft + viewportWidth + marginRight - 1) / tileWidth);
+        int newFirstRow = Math.max(0, (viewportTop - marginTop) / tileHeight);
+        int newLastRow = Math.min(rowCount - 1, (viewportTop + viewportHeight + marginBottom - 1) / tileHeight);
+
+        // Cheap exit while panning within the same tiles
+        if (newFirstColumn == firstColumn && newLastColumn == lastColumn && newFirstRow == firstRow && newLastRow == lastRow) {
+            return;
+        }
+
+        // Recycle tiles leaving the area
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            View tile = getChildAt(i);
+            TileLayoutParams layoutParams = (TileLayoutParams) tile.getLayoutParams();
+
+            if (layoutParams.column < newFirstColumn || layoutParams.column > newLastColumn || layoutParams.row < newFirstRow || layoutParams.row > newLastRow) {
+                removeViewInLayout(tile);
+                scrapTiles.add(tile);
+            }
+        }
+
+        // Bind tiles entering the area
+        for (int row = newFirstRow; row <= newLastRow; row++) {
+            for (int column = newFirstColumn; column <= newLastColumn; column++) {
+                // Attached tiles always cover exactly the old range
+                if (column >= firstColumn && column <= lastColumn && row >= firstRow && row <= lastRow) {
+                    continue;
+                }
+
+                bindTile(column, row, tileWidth, tileHeight);
+            }
+        }
+
+        firstColumn = newFirstColumn;
+        lastColumn = newLastColumn;
+        firstRow = newFirstRow;
+        lastRow = newLastRow;
+
+        // Keep the pool no larger than the area it serves
+        int maxScrap = (lastColumn - firstColumn + 1) * (lastRow - firstRow + 1);
+        while (scrapTiles.size() > maxScrap) {
+            scrapTiles.remove(scrapTiles.size() - 1);
+        }
+
+        invalidate();
+    }
+
+    private void bindTile(int column, int row, int tileWidth, int tileHeight) {
+        // Reuse a detached tile if we have one
+        View convertView = scrapTiles.isEmpty() ? null : scrapTiles.remove(scrapTiles.size() - 1);
+        View tile = tileProvider.getTileView(column, row, convertView, this);
+
+        // Edge tiles are clipped to the content bounds
+        int left = column * tileWidth;
+        int top = row * tileHeight;
+        int width = Math.min(tileWidth, tileProvider.getContentWidth() - left);
+        int height = Math.min(tileHeight, tileProvider.getContentHeight() - top);
+
+        // Reuse the recycled tile's layout parameters where possible
+        TileLayoutParams layoutParams;
+        if (tile.getLayoutParams() instanceof TileLayoutParams) {
+            layoutParams = (TileLayoutParams) tile.getLayoutParams();
+            layoutParams.width = width;
+            layoutParams.height = height;
+        } else {
+            layoutParams = new TileLayoutParams(width, height);
+        }
+
+        layoutParams.column = column;
+        layoutParams.row = row;
+
+        // Add without triggering a layout of the whole hierarchy
+        addViewInLayout(tile, -1, layoutParams, true);
+
+        tile.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        tile.layout(left, top, left + width, top + height);
+    }
+
+    private void removeAllTiles() {
+        // Move every attached tile to the pool
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            scrapTiles.add(getChildAt(i));
+        }
+        removeAllViewsInLayout();
+
+        clearRange();
+        invalidate();
+    }
+
+    private void clearRange() {
+        firstColumn = 0;
+        lastColumn = -1;
+        firstRow = 0;
+        lastRow = -1;
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams layoutParams) {
+        return layoutParams instanceof TileLayoutParams;
+    }
+
+    @Override
+    protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+        return new TileLayoutParams(0, 0);
+    }
+
+    private static class TileLayoutParams extends ViewGroup.LayoutParams {
+
+        private int column;
+        private int row;
+
+        private TileLayoutParams(int width, int height) {
+            super(width, height);
+        }
+
+    }
+
+}
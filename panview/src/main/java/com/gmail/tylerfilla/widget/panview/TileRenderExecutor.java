@@ -0,0 +1,82 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+final class TileRenderExecutor {
+
+    private static final int MAX_THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private static TileRenderExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Handler mainHandler;
+
+    private TileRenderExecutor() {
+        // Leave a core for the UI thread
+        int threads = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+
+        // Queue runs visible tiles before prefetch tiles
+        executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            private int count;
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        // Stay out of the way of the UI thread
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+                        runnable.run();
+                    }
+
+                }, "PanView tile renderer #" + ++count);
+            }
+
+        });
+
+        // Do not hold threads while idle
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    static synchronized TileRenderExecutor getInstance() {
+        // Shared by all PanViews in the process
+        if (instance == null) {
+            instance = new TileRenderExecutor();
+        }
+
+        return instance;
+    }
+
+    void submit(TileRenderTask task) {
+        executor.execute(task);
+    }
+
+    boolean cancel(TileRenderTask task) {
+        task.cancel();
+
+        // True if it never started, so its bitmap was never touched
+        return executor.remove(task);
+    }
+
+    void deliver(Runnable runnable) {
+        mainHandler.post(runnable);
+    }
+
+}
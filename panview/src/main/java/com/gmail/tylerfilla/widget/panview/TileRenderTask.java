@@ -0,0 +1,102 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+final class TileRenderTask implements Runnable, Comparable<TileRenderTask> {
+
+    // Tasks are only created on the UI thread
+    private static long nextSequence;
+
+    final int level;
+    final int column;
+    final int row;
+    final int version;
+    final int priority;
+
+    final Bitmap bitmap;
+
+    private final long sequence;
+
+    private final Rect region;
+
+    // Pixels per content pixel at this tile's level
+    private final float scale;
+
+    private final PanView.TileRenderer tileRenderer;
+
+    private final Runnable deliverRunnable;
+
+    private volatile boolean cancelled;
+
+    TileRenderTask(int level, int column, int row, int version, int priority, Bitmap bitmap, float scale, PanView.TileRenderer tileRenderer, final Callback callback) {
+        this.level = level;
+        this.column = column;
+        this.row = row;
+        this.version = version;
+        this.priority = priority;
+        this.bitmap = bitmap;
+        this.scale = scale;
+        this.tileRenderer = tileRenderer;
+
+        sequence = nextSequence++;
+
+        // Region of content covered by this tile, rounded outward
+        float span = bitmap.getWidth() / scale;
+        region = new Rect((int) Math.floor(column * span), (int) Math.floor(row * span), (int) Math.ceil((column + 1) * span), (int) Math.ceil((row + 1) * span));
+
+        deliverRunnable = new Runnable() {
+
+            @Override
+            public void run() {
+                callback.onTileRendered(TileRenderTask.this);
+            }
+
+        };
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public void run() {
+        // Skip the work if cancelled while queued, but still hand the bitmap back
+        if (!cancelled) {
+            float span = bitmap.getWidth() / scale;
+
+            // Renderer draws in content coordinates at the level's scale
+            Canvas canvas = new Canvas(bitmap);
+            canvas.scale(scale, scale);
+            canvas.translate(-column * span, -row * span);
+            canvas.clipRect(region);
+
+            tileRenderer.renderTile(canvas, region, scale);
+        }
+
+        // Results are consumed on the UI thread
+        TileRenderExecutor.getInstance().deliver(deliverRunnable);
+    }
+
+    @Override
+    public int compareTo(TileRenderTask other) {
+        // Lower priority value first, then first come first served
+        if (priority != other.priority) {
+            return priority < other.priority ? -1 : 1;
+        }
+
+        return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+    }
+
+    interface Callback {
+
+        void onTileRendered(TileRenderTask task);
+
+    }
+
+}
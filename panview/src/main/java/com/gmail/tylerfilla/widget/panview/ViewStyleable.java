@@ -0,0 +1,111 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import java.util.Arrays;
+
+final class ViewStyleable {
+
+    // Public attributes we read, for when the private table cannot be reached
+    private static final int[] PUBLIC_ATTRS = {
+            android.R.attr.fadeScrollbars,
+            android.R.attr.scrollbarDefaultDelayBeforeFade,
+            android.R.attr.scrollbarFadeDuration,
+            android.R.attr.scrollbarSize,
+            android.R.attr.scrollbarStyle,
+            android.R.attr.scrollbarThumbHorizontal,
+            android.R.attr.scrollbarThumbVertical,
+            android.R.attr.scrollbarTrackHorizontal,
+            android.R.attr.scrollbarTrackVertical,
+            android.R.attr.scrollbars,
+    };
+
+    // Attribute array to pass to obtainStyledAttributes
+    final int[] attrs;
+
+    // Indices of relevant attributes in the above array
+    final int fadeScrollbars;
+    final int scrollbarDefaultDelayBeforeFade;
+    final int scrollbarFadeDuration;
+    final int scrollbarSize;
+    final int scrollbarStyle;
+    final int scrollbarThumbHorizontal;
+    final int scrollbarThumbVertical;
+    final int scrollbarTrackHorizontal;
+    final int scrollbarTrackVertical;
+    final int scrollbars;
+
+    // Whether the above came from the private table rather than the fallback
+    final boolean reflected;
+
+    private ViewStyleable(int[] attrs, int[] indices, boolean reflected) {
+        this.attrs = attrs;
+        this.reflected = reflected;
+
+        fadeScrollbars = indices[0];
+        scrollbarDefaultDelayBeforeFade = indices[1];
+        scrollbarFadeDuration = indices[2];
+        scrollbarSize = indices[3];
+        scrollbarStyle = indices[4];
+        scrollbarThumbHorizontal = indices[5];
+        scrollbarThumbVertical = indices[6];
+        scrollbarTrackHorizontal = indices[7];
+        scrollbarTrackVertical = indices[8];
+        scrollbars = indices[9];
+    }
+
+    static ViewStyleable get() {
+        // Resolved once per process on first use; class initialization makes this thread-safe
+        return Holder.INSTANCE;
+    }
+
+    static ViewStyleable resolve(String styleableClassName) {
+        try {
+            // Get private "styleable" table
+            Class<?> styleable = Class.forName(styleableClassName);
+
+            // Extract relevant information from it
+            int[] attrs = (int[]) styleable.getDeclaredField("View").get(null);
+            int[] indices = {
+                    styleable.getDeclaredField("View_fadeScrollbars").getInt(null),
+                    styleable.getDeclaredField("View_scrollbarDefaultDelayBeforeFade").getInt(null),
+                    styleable.getDeclaredField("View_scrollbarFadeDuration").getInt(null),
+                    styleable.getDeclaredField("View_scrollbarSize").getInt(null),
+                    styleable.getDeclaredField("View_scrollbarStyle").getInt(null),
+                    styleable.getDeclaredField("View_scrollbarThumbHorizontal").getInt(null),
+                    styleable.getDeclaredField("View_scrollbarThumbVertical").getInt(null),
+                    styleable.getDeclaredField("View_scrollbarTrackHorizontal").getInt(null),
+                    styleable.getDeclaredField("View_scrollbarTrackVertical").getInt(null),
+                    styleable.getDeclaredField("View_scrollbars").getInt(null),
+            };
+
+            return new ViewStyleable(attrs, indices, true);
+        } catch (ClassNotFoundException e) {
+            return fallback();
+        } catch (NoSuchFieldException e) {
+            return fallback();
+        } catch (IllegalAccessException e) {
+            return fallback();
+        } catch (SecurityException e) {
+            return fallback();
+        }
+    }
+
+    private static ViewStyleable fallback() {
+        // obtainStyledAttributes wants the attributes sorted by ID
+        int[] attrs = PUBLIC_ATTRS.clone();
+        Arrays.sort(attrs);
+
+        int[] indices = new int[PUBLIC_ATTRS.length];
+        for (int i = 0; i < PUBLIC_ATTRS.length; i++) {
+            indices[i] = Arrays.binarySearch(attrs, PUBLIC_ATTRS[i]);
+        }
+
+        return new ViewStyleable(attrs, indices, false);
+    }
+
+    private static final class Holder {
+
+        static final ViewStyleable INSTANCE = resolve("android.R$styleable");
+
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.gmail.tylerfilla.widget.panview;
+
+final class VirtualAxis {
+
+    // Viewports spanned by the real window, leaving one of slack either side of the middle band
+    static final int WINDOW_VIEWPORTS = 5;
+
+    // Logical size of the content
+    private long contentSize;
+
+    private int viewportSize;
+
+    // Logical position of the real window's leading edge
+    private long origin;
+
+    long getContentSize() {
+        return contentSize;
+    }
+
+    void setContentSize(long contentSize) {
+        this.contentSize = Math.max(0, contentSize);
+    }
+
+    int getViewportSize() {
+        return viewportSize;
+    }
+
+    void setViewportSize(int viewportSize) {
+        this.viewportSize = Math.max(0, viewportSize);
+    }
+
+    long getOrigin() {
+        return origin;
+    }
+
+    void reset() {
+        origin = 0;
+    }
+
+    int getWindowSize() {
+        // The whole content if it is small, otherwise a few viewports of it
+        return (int) Math.min(contentSize, (long) Math.max(1, viewportSize) * WINDOW_VIEWPORTS);
+    }
+
+    long getRange() {
+        return Math.max(0, contentSize - viewportSize);
+    }
+
+    int place(long pan) {
+        pan = Math.max(0, Math.min(pan, getRange()));
+
+        int window = getWindowSize();
+
+        // Move the window only once the pan leaves the middle band, or if the window no longer fits
+        long scroll = pan - origin;
+        if (scroll < viewportSize || scroll > window - 2L * viewportSize || origin > contentSize - window || origin < 0) {
+            origin = Math.max(0, Math.min(pan - (window - viewportSize) / 2, contentSize - window));
+        }
+
+        return (int) (pan - origin);
+    }
+
+    long rebase(int scroll) {
+        long oldOrigin = origin;
+
+        // Same logical pan, perhaps from a different origin
+        place(origin + scroll);
+
+        return origin - oldOrigin;
+    }
+
+}
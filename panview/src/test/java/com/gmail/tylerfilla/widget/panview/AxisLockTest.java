@@ -0,0 +1,68 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AxisLockTest {
+
+    private static final int TOUCH_SLOP = 8;
+
+    private AxisLock axisLock;
+
+    @Before
+    public void setUp() throws Exception {
+        axisLock = new AxisLock(TOUCH_SLOP, 30f, 200);
+    }
+
+    @Test
+    public void move_locksOncePastSlopByAngle() throws Exception {
+        axisLock.onDown(100f, 100f, 0);
+
+        // Within the slop, nothing is decided
+        assertFalse(axisLock.onMove(104f, 101f));
+        assertEquals(AxisLock.AXIS_NONE, axisLock.getAxis());
+
+        assertTrue(axisLock.onMove(130f, 110f));
+        assertEquals(AxisLock.AXIS_HORIZONTAL, axisLock.getAxis());
+
+        // Decided for the rest of the gesture, whatever the finger does next
+        assertFalse(axisLock.onMove(130f, 300f));
+        assertEquals(AxisLock.AXIS_HORIZONTAL, axisLock.getAxis());
+
+        axisLock.onUp(100);
+        axisLock.onDown(100f, 100f, 1000);
+        assertTrue(axisLock.onMove(105f, 150f));
+        assertEquals(AxisLock.AXIS_VERTICAL, axisLock.getAxis());
+    }
+
+    @Test
+    public void move_diagonalStaysFree() throws Exception {
+        axisLock.onDown(0f, 0f, 0);
+
+        assertFalse(axisLock.onMove(40f, 40f));
+        assertEquals(AxisLock.AXIS_NONE, axisLock.getAxis());
+    }
+
+    @Test
+    public void down_keepsLockWithinDuration() throws Exception {
+        axisLock.onDown(0f, 0f, 0);
+        axisLock.onMove(0f, 50f);
+        axisLock.onUp(500);
+
+        // Soon after, the lock holds from the start
+        axisLock.onDown(0f, 0f, 650);
+        assertEquals(AxisLock.AXIS_VERTICAL, axisLock.getAxis());
+        assertFalse(axisLock.onMove(50f, 0f));
+        assertEquals(AxisLock.AXIS_VERTICAL, axisLock.getAxis());
+        axisLock.onUp(700);
+
+        // Too late, so decided afresh
+        axisLock.onDown(0f, 0f, 1000);
+        assertEquals(AxisLock.AXIS_NONE, axisLock.getAxis());
+        assertTrue(axisLock.onMove(50f, 0f));
+        assertEquals(AxisLock.AXIS_HORIZONTAL, axisLock.getAxis());
+    }
+
+}
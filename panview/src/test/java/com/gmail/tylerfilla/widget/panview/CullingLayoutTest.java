@@ -0,0 +1,166 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class CullingLayoutTest {
+
+    private static final int SIZE = 1000;
+
+    private InterceptingCullingLayout cullingLayout;
+
+    // Two children stacked over the same spot
+    private CountingView below;
+    private CountingView above;
+
+    private long downTime;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = RuntimeEnvironment.application;
+
+        cullingLayout = new InterceptingCullingLayout(context);
+        cullingLayout.setHitTestIndexEnabled(true);
+
+        below = new CountingView(context);
+        above = new CountingView(context);
+        cullingLayout.addView(below, new FrameLayout.LayoutParams(SIZE / 2, SIZE / 2));
+        cullingLayout.addView(above, new FrameLayout.LayoutParams(SIZE / 2, SIZE / 2));
+
+        // Fills the grid
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        cullingLayout.measure(spec, spec);
+        cullingLayout.layout(0, 0, SIZE, SIZE);
+
+        downTime = SystemClock.uptimeMillis();
+    }
+
+    @Test
+    public void declinedDown_fallsThroughToChildBelow() throws Exception {
+        above.handles = false;
+
+        assertTrue(dispatch(MotionEvent.ACTION_DOWN));
+        assertTrue(dispatch(MotionEvent.ACTION_MOVE));
+        assertTrue(dispatch(MotionEvent.ACTION_UP));
+
+        // The target is offered the down by the grid, then again by the linear walk, and declines both
+        assertEquals(2, above.downCount);
+        assertEquals(2, above.eventCount);
+
+        // And the child below it takes the whole gesture
+        assertEquals(1, below.downCount);
+        assertEquals(3, below.eventCount);
+    }
+
+    @Test
+    public void handledDown_routesGestureToTargetOnly() throws Exception {
+        assertTrue(dispatch(MotionEvent.ACTION_DOWN));
+        assertTrue(dispatch(MotionEvent.ACTION_MOVE));
+        assertTrue(dispatch(MotionEvent.ACTION_UP));
+
+        assertEquals(3, above.eventCount);
+        assertEquals(0, below.eventCount);
+    }
+
+    @Test
+    public void intercept_cancelsTargetAndTakesGesture() throws Exception {
+        assertTrue(dispatch(MotionEvent.ACTION_DOWN));
+
+        // Layout takes over partway through
+        cullingLayout.intercepts = true;
+        assertTrue(dispatch(MotionEvent.ACTION_MOVE));
+        assertEquals(MotionEvent.ACTION_CANCEL, above.lastAction);
+        assertEquals(0, cullingLayout.touchEventCount);
+
+        // Rest of the gesture is the layout's own
+        dispatch(MotionEvent.ACTION_MOVE);
+        dispatch(MotionEvent.ACTION_UP);
+        assertEquals(2, above.eventCount);
+        assertEquals(2, cullingLayout.touchEventCount);
+    }
+
+    @Test
+    public void disallowedIntercept_keepsGestureWithTarget() throws Exception {
+        assertTrue(dispatch(MotionEvent.ACTION_DOWN));
+
+        above.getParent().requestDisallowInterceptTouchEvent(true);
+        cullingLayout.intercepts = true;
+        assertTrue(dispatch(MotionEvent.ACTION_MOVE));
+        assertTrue(dispatch(MotionEvent.ACTION_UP));
+
+        assertEquals(3, above.eventCount);
+        assertEquals(MotionEvent.ACTION_UP, above.lastAction);
+        assertEquals(0, cullingLayout.touchEventCount);
+    }
+
+    private boolean dispatch(int action) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, SIZE / 4, SIZE / 4, 0);
+        boolean handled = cullingLayout.dispatchTouchEvent(event);
+        event.recycle();
+
+        return handled;
+    }
+
+    private static class InterceptingCullingLayout extends CullingLayout {
+
+        boolean intercepts;
+        int touchEventCount;
+
+        InterceptingCullingLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        public boolean onInterceptTouchEvent(MotionEvent event) {
+            return intercepts;
+        }
+
+        @Override
+        public boolean onTouchEvent(MotionEvent event) {
+            touchEventCount++;
+            return true;
+        }
+
+    }
+
+    private static class CountingView extends View {
+
+        boolean handles = true;
+
+        int downCount;
+        int eventCount;
+        int lastAction = -1;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public boolean dispatchTouchEvent(MotionEvent event) {
+            eventCount++;
+            lastAction = event.getActionMasked();
+
+            if (lastAction == MotionEvent.ACTION_DOWN) {
+                downCount++;
+            }
+
+            return handles;
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FlingPredictorTest {
+
+    private FlingPredictor predictor;
+
+    @Before
+    public void setUp() throws Exception {
+        predictor = new FlingPredictor(2.0f);
+    }
+
+    @Test
+    public void distance_growsWithVelocityInEitherDirection() throws Exception {
+        assertEquals(0.0, predictor.getFlingDistance(0), 0.0);
+
+        double slow = predictor.getFlingDistance(1000);
+        double fast = predictor.getFlingDistance(4000);
+
+        assertTrue(slow > 0.0);
+        assertTrue(fast > slow);
+        assertEquals(slow, predictor.getFlingDistance(-1000), 0.0);
+    }
+
+    @Test
+    public void finalPosition_followsVelocityAndStopsAtBounds() throws Exception {
+        int forward = predictor.getFinalPosition(5000, 2000, 0, 10000);
+        int backward = predictor.getFinalPosition(5000, -2000, 0, 10000);
+
+        assertTrue(forward > 5000);
+        assertEquals(5000 - backward, forward - 5000);
+
+        assertEquals(10000, predictor.getFinalPosition(9990, 8000, 0, 10000));
+        assertEquals(0, predictor.getFinalPosition(10, -8000, 0, 10000));
+        assertEquals(5000, predictor.getFinalPosition(5000, 0, 0, 10000));
+    }
+
+    @Test
+    public void planner_countsFlingsAndLandingReadiness() throws Exception {
+        PrefetchPlanner planner = new PrefetchPlanner();
+
+        // One fling updated axis by axis counts once
+        planner.startFling(1500, 0, 3000, 0);
+        planner.startFling(1500, -800, 3000, 200);
+        assertEquals(1, planner.getDirectionX());
+        assertEquals(-1, planner.getDirectionY());
+        planner.markLandingReady();
+        planner.endFling();
+
+        // Caught before its landing tiles arrived
+        planner.startFling(0, 2000, 0, 4000);
+        planner.markLandingTracked();
+        planner.endFling();
+
+        // Over content that cannot say when its landing is ready
+        planner.startFling(0, -2000, 0, 0);
+        planner.endFling();
+
+        assertFalse(planner.isFlinging());
+        assertEquals(3, planner.getFlingCount());
+        assertEquals(2, planner.getLandingTrackedCount());
+        assertEquals(1, planner.getLandingReadyCount());
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GestureClassifierTest {
+
+    private static final int TOUCH_SLOP = 8;
+
+    private static final int ROUTE_PAN = GestureClassifier.ROUTE_ENGINE;
+    private static final int ROUTE_TAP = GestureClassifier.ROUTE_ENGINE | GestureClassifier.ROUTE_CONTENT;
+    private static final int ROUTE_TAKEOVER = GestureClassifier.ROUTE_ENGINE | GestureClassifier.ROUTE_CANCEL_CONTENT;
+
+    private GestureClassifier classifier;
+
+    @Before
+    public void setUp() throws Exception {
+        classifier = new GestureClassifier(TOUCH_SLOP);
+    }
+
+    @Test
+    public void tap_routesToEngineAndContent() throws Exception {
+        assertRoute(MotionEvent.ACTION_DOWN, 100f, 100f, false, ROUTE_TAP);
+        assertRoute(MotionEvent.ACTION_MOVE, 102f, 101f, false, ROUTE_TAP);
+        assertRoute(MotionEvent.ACTION_UP, 102f, 101f, false, ROUTE_TAP);
+
+        assertFalse(classifier.isPanning());
+    }
+
+    @Test
+    public void drag_cancelsContentOnceThenRoutesToEngineOnly() throws Exception {
+        assertRoute(MotionEvent.ACTION_DOWN, 100f, 100f, false, ROUTE_TAP);
+        assertRoute(MotionEvent.ACTION_MOVE, 104f, 100f, false, ROUTE_TAP);
+
+        // Passing the slop on either axis makes the gesture a pan
+        assertRoute(MotionEvent.ACTION_MOVE, 104f, 120f, false, ROUTE_TAKEOVER);
+        assertTrue(classifier.isPanning());
+
+        for (int i = 0; i < 240; i++) {
+            assertRoute(MotionEvent.ACTION_MOVE, 104f + i, 120f + i, false, ROUTE_PAN);
+        }
+
+        assertRoute(MotionEvent.ACTION_UP, 344f, 360f, false, ROUTE_PAN);
+    }
+
+    @Test
+    public void downWhileSettling_neverReachesContent() throws Exception {
+        assertRoute(MotionEvent.ACTION_DOWN, 100f, 100f, true, ROUTE_PAN);
+        assertTrue(classifier.isPanning());
+
+        assertRoute(MotionEvent.ACTION_MOVE, 101f, 100f, true, ROUTE_PAN);
+        assertRoute(MotionEvent.ACTION_UP, 101f, 100f, true, ROUTE_PAN);
+    }
+
+    @Test
+    public void newGesture_resetsClassification() throws Exception {
+        classifier.classify(MotionEvent.ACTION_DOWN, 0f, 0f, false);
+        classifier.classify(MotionEvent.ACTION_MOVE, 50f, 0f, false);
+        classifier.classify(MotionEvent.ACTION_UP, 50f, 0f, false);
+        assertTrue(classifier.isPanning());
+
+        assertRoute(MotionEvent.ACTION_DOWN, 50f, 0f, false, ROUTE_TAP);
+        assertFalse(classifier.isPanning());
+    }
+
+    private void assertRoute(int action, float x, float y, boolean settling, int route) {
+        assertEquals(route, classifier.classify(action, x, y, settling));
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+public class ListenerListTest {
+
+    private static final int FLING_FRAMES = 10000;
+
+    private int callbackCount;
+
+    @Test
+    public void dispatch_allocatesNothingOverSimulatedFling() throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        // Allocation counting is a HotSpot extension
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        ListenerList<PanView.OnPanChangedListener> listenerList = new ListenerList<>();
+        for (int i = 0; i < 3; i++) {
+            listenerList.add(new PanView.OnPanChangedListener() {
+
+                @Override
+                public void onPanChanged(int l, int t, int oldl, int oldt) {
+                    callbackCount++;
+                }
+
+            });
+        }
+
+        // Warm up so class loading and compilation do not count
+        simulateFling(listenerList);
+
+        long threadId = Thread.currentThread().getId();
+
+        // Cost of measuring itself
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        long overhead = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        callbackCount = 0;
+
+        before = allocationBean.getThreadAllocatedBytes(threadId);
+        simulateFling(listenerList);
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before - overhead;
+
+        assertEquals(3 * FLING_FRAMES, callbackCount);
+
+        // Less than one byte per frame means nothing is allocated per dispatch
+        assertTrue("allocated " + allocated + " bytes", allocated < FLING_FRAMES);
+    }
+
+    @Test
+    public void dispatch_toleratesRemovalDuringCallback() throws Exception {
+        final ListenerList<PanView.OnPanChangedListener> listenerList = new ListenerList<>();
+
+        listenerList.add(new PanView.OnPanChangedListener() {
+
+            @Override
+            public void onPanChanged(int l, int t, int oldl, int oldt) {
+                callbackCount++;
+
+                // One-shot listener
+                listenerList.remove(this);
+            }
+
+        });
+
+        listenerList.add(new PanView.OnPanChangedListener() {
+
+            @Override
+            public void onPanChanged(int l, int t, int oldl, int oldt) {
+                callbackCount++;
+            }
+
+        });
+
+        // Both see the first dispatch despite the removal mid-walk
+        dispatch(listenerList, 0);
+        assertEquals(2, callbackCount);
+
+        // Only the second remains
+        dispatch(listenerList, 1);
+        assertEquals(3, callbackCount);
+        assertEquals(1, listenerList.size());
+    }
+
+    @Test
+    public void dispatch_defersAdditionDuringCallbackToNextDispatch() throws Exception {
+        final ListenerList<PanView.OnPanChangedListener> listenerList = new ListenerList<>();
+
+        listenerList.add(new PanView.OnPanChangedListener() {
+
+            @Override
+            public void onPanChanged(int l, int t, int oldl, int oldt) {
+                callbackCount++;
+
+                // Add another listener on first call only
+                if (l == 0) {
+                    listenerList.add(new PanView.OnPanChangedListener() {
+
+                        @Override
+                        public void onPanChanged(int l, int t, int oldl, int oldt) {
+                            callbackCount++;
+                        }
+
+                    });
+                }
+            }
+
+        });
+
+        dispatch(listenerList, 0);
+        assertEquals(1, callbackCount);
+
+        dispatch(listenerList, 1);
+        assertEquals(3, callbackCount);
+    }
+
+    @Test
+    public void remove_unknownListenerIsIgnored() throws Exception {
+        ListenerList<PanView.OnPanStoppedListener> listenerList = new ListenerList<>();
+
+        listenerList.remove(new PanView.OnPanStoppedListener() {
+
+            @Override
+            public void onPanStopped() {
+            }
+
+        });
+
+        assertEquals(0, listenerList.size());
+        assertEquals(0, listenerList.snapshot().length);
+    }
+
+    private void simulateFling(ListenerList<PanView.OnPanChangedListener> listenerList) {
+        for (int frame = 0; frame < FLING_FRAMES; frame++) {
+            dispatch(listenerList, frame);
+        }
+    }
+
+    private static void dispatch(ListenerList<PanView.OnPanChangedListener> listenerList, int frame) {
+        // Same walk PanView uses
+        Object[] listeners = listenerList.snapshot();
+        for (int i = 0; i < listeners.length; i++) {
+            ((PanView.OnPanChangedListener) listeners[i]).onPanChanged(frame, frame, frame - 1, frame - 1);
+        }
+    }
+
+}
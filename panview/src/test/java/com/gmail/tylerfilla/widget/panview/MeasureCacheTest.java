@@ -0,0 +1,164 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class MeasureCacheTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+
+    private Activity activity;
+
+    private PanView panView;
+    private MeasureCountingView content;
+
+    private ViewGroup.LayoutParams layoutParams;
+
+    @Before
+    public void setUp() throws Exception {
+        activity = Robolectric.setupActivity(Activity.class);
+
+        // Only the passes run here count, not the window's
+        ShadowLooper.pauseMainLooper();
+
+        panView = new PanView(activity);
+        content = new MeasureCountingView(activity);
+        panView.addView(content, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        activity.setContentView(panView);
+
+        // As converted by the engine the child was spliced into
+        layoutParams = content.getLayoutParams();
+    }
+
+    @Test
+    public void layout_measuresChildOnce() throws Exception {
+        // Both scroll views and the host's parent may measure more than once per traversal
+        panView.measure(getSpec(WIDTH), getSpec(HEIGHT));
+        layout(WIDTH, HEIGHT);
+
+        assertEquals(1, content.measureCount);
+
+        // Unrelated relayouts of the host and engine leave the child alone
+        for (int i = 0; i < 100; i++) {
+            panView.getScrollViewX().forceLayout();
+            panView.getScrollViewY().forceLayout();
+            panView.forceLayout();
+            layout(WIDTH, HEIGHT);
+        }
+
+        assertEquals(1, content.measureCount);
+    }
+
+    @Test
+    public void childLayoutRequest_measuresChildOncePerLayout() throws Exception {
+        layout(WIDTH, HEIGHT);
+
+        for (int i = 0; i < 10; i++) {
+            content.requestLayout();
+            layout(WIDTH, HEIGHT);
+        }
+
+        assertEquals(11, content.measureCount);
+    }
+
+    @Test
+    public void changedInputs_measureChildAgain() throws Exception {
+        layout(WIDTH, HEIGHT);
+
+        // Rotation changes the viewport the child matches
+        layout(HEIGHT, WIDTH);
+        assertEquals(2, content.measureCount);
+        assertEquals(HEIGHT, content.getMeasuredWidth());
+        assertEquals(WIDTH, content.getMeasuredHeight());
+
+        // A different child starts from scratch
+        MeasureCountingView replacement = new MeasureCountingView(activity);
+        panView.removeAllViews();
+        panView.addView(replacement, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        layout(HEIGHT, WIDTH);
+        assertEquals(1, replacement.measureCount);
+    }
+
+    @Test
+    public void fillViewport_stretchesChildOncePerLayout() throws Exception {
+        content.setLayoutParams(new FrameLayout.LayoutParams(WIDTH / 4, HEIGHT / 4));
+        layout(WIDTH, HEIGHT);
+        assertEquals(1, content.measureCount);
+
+        // Fill flags change how the child is stretched
+        panView.setFillViewportWidth(true);
+        layout(WIDTH, HEIGHT);
+        assertEquals(2, content.measureCount);
+        assertEquals(WIDTH, content.getMeasuredWidth());
+        assertEquals(HEIGHT / 4, content.getMeasuredHeight());
+
+        // And stays stretched without measuring again
+        layout(WIDTH, HEIGHT);
+        assertEquals(2, content.measureCount);
+    }
+
+    @Test
+    public void measure_leavesLayoutParamsAlone() throws Exception {
+        content.layoutRequestCount = 0;
+
+        layout(WIDTH, HEIGHT);
+        layout(HEIGHT, WIDTH);
+
+        // Match parent resolves against the viewport without being rewritten
+        assertSame(layoutParams, content.getLayoutParams());
+        assertEquals(ViewGroup.LayoutParams.MATCH_PARENT, layoutParams.width);
+        assertEquals(ViewGroup.LayoutParams.MATCH_PARENT, layoutParams.height);
+
+        // Nor does measuring ask the child for another layout
+        assertEquals(0, content.layoutRequestCount);
+    }
+
+    private void layout(int width, int height) {
+        panView.measure(getSpec(width), getSpec(height));
+        panView.layout(0, 0, width, height);
+    }
+
+    private static int getSpec(int size) {
+        return View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+    }
+
+    private static class MeasureCountingView extends View {
+
+        int measureCount;
+        int layoutRequestCount;
+
+        MeasureCountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        public void requestLayout() {
+            layoutRequestCount++;
+            super.requestLayout();
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.view.animation.Interpolator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PanAnimatorTest {
+
+    private PanAnimator animator;
+
+    @Before
+    public void setUp() throws Exception {
+        // Smoothstep, which like the default interpolator starts and ends at rest
+        animator = new PanAnimator(new Interpolator() {
+
+            @Override
+            public float getInterpolation(float t) {
+                return t * t * (3f - 2f * t);
+            }
+
+        }, 400);
+    }
+
+    @Test
+    public void step_movesBothAxesToTarget() throws Exception {
+        animator.start(0, 0, 400, -200, 1000);
+
+        assertTrue(animator.step(1200));
+        assertEquals(200, animator.getCurrX());
+        assertEquals(-100, animator.getCurrY());
+
+        assertFalse(animator.step(1400));
+        assertFalse(animator.isRunning());
+        assertEquals(400, animator.getCurrX());
+        assertEquals(-200, animator.getCurrY());
+    }
+
+    @Test
+    public void start_retargetsWithoutJumpingOrStopping() throws Exception {
+        animator.start(0, 0, 1000, 0, 0);
+        animator.step(200);
+        int before = animator.getCurrX();
+
+        // Retarget mid-flight, from where the animation is
+        animator.start(0, 0, 2000, 0, 200);
+        assertTrue(animator.isRunning());
+        assertEquals(before, animator.getCurrX());
+        assertEquals(2000, animator.getTargetX());
+
+        // Still moving forward right after, rather than easing in from rest
+        animator.step(216);
+        assertTrue(animator.getCurrX() - before > 20);
+
+        assertFalse(animator.step(600));
+        assertEquals(2000, animator.getCurrX());
+    }
+
+    @Test
+    public void stop_leavesPositionWhereItWas() throws Exception {
+        animator.start(0, 0, 400, 400, 0);
+        animator.step(100);
+        animator.stop();
+
+        assertFalse(animator.isRunning());
+        assertFalse(animator.step(500));
+        assertTrue(animator.getCurrX() < 400);
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PanMetricsTest {
+
+    private static final long FRAME = 16000000L;
+
+    private PanMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        metrics = new PanMetrics();
+        metrics.setFrameIntervalNanos(FRAME);
+    }
+
+    @Test
+    public void frames_countDropsWithinPanOnly() throws Exception {
+        metrics.onFrame(FRAME);
+        metrics.onFrame(2 * FRAME);
+
+        // Two frames missed
+        metrics.onFrame(5 * FRAME);
+
+        // Idle time between pans is not dropped
+        metrics.onPanStopped();
+        metrics.onFrame(100 * FRAME);
+
+        assertEquals(4, metrics.getFramesRendered());
+        assertEquals(2, metrics.getFramesDropped());
+    }
+
+    @Test
+    public void dispatch_accumulatesPerFrameAndFlagsOverBudget() throws Exception {
+        assertFalse(metrics.onListenerDispatched(1000, 2000));
+        assertTrue(metrics.onListenerDispatched(3000, 2000));
+        metrics.onFrame(FRAME);
+
+        assertFalse(metrics.onListenerDispatched(500, 2000));
+        metrics.onFrame(2 * FRAME);
+
+        assertEquals(500, metrics.getLastFrameDispatchNanos());
+        assertEquals(4000, metrics.getMaxFrameDispatchNanos());
+        assertEquals(4500, metrics.getTotalDispatchNanos());
+        assertEquals(1, metrics.getOverBudgetCount());
+    }
+
+    @Test
+    public void touchLatency_measuredFromOldestMoveToFirstScrolledFrame() throws Exception {
+        metrics.onTouchMoved(10 * FRAME);
+        metrics.onTouchMoved(10 * FRAME + 100);
+
+        // No scroll yet, so nothing to see
+        metrics.onFrame(11 * FRAME);
+        assertEquals(0, metrics.getLastTouchLatencyNanos());
+
+        metrics.onScrolled();
+        metrics.onFrame(12 * FRAME);
+        assertEquals(2 * FRAME, metrics.getLastTouchLatencyNanos());
+        assertEquals(2 * FRAME, metrics.getMaxTouchLatencyNanos());
+    }
+
+    @Test
+    public void fling_recordsDurationAndDistance() throws Exception {
+        metrics.onFlingStarted(1000, 0, 0);
+
+        // Updated mid-flight
+        metrics.onFlingStarted(2000, 10, 10);
+
+        metrics.onFlingEnded(501000, 300, 400);
+
+        assertEquals(500000, metrics.getLastFlingDurationNanos());
+        assertEquals(500, metrics.getLastFlingDistance());
+
+        // Nothing in flight
+        metrics.onFlingEnded(900000, 0, 0);
+        assertEquals(500000, metrics.getLastFlingDurationNanos());
+
+        metrics.reset();
+        assertEquals(0, metrics.getLastFlingDistance());
+    }
+
+}
@@ -0,0 +1,462 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.HorizontalScrollView;
+import android.widget.ScrollView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.RealObject;
+import org.robolectric.internal.Shadow;
+import org.robolectric.internal.ShadowExtractor;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowViewGroup;
+import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        PanViewTest.ShadowCountingViewGroup.class,
+        PanViewTest.ShadowCountingFrameLayout.class,
+        PanViewTest.ShadowCountingHorizontalScrollView.class,
+        PanViewTest.ShadowCountingScrollView.class
+})
+public class PanViewTest {
+
+    private static final int VIEWPORT_SIZE = 1000;
+    private static final int CONTENT_SIZE = 4000;
+
+    // Roughly one display frame
+    private static final long FRAME_MILLIS = 16;
+
+    private PanView panView;
+    private CountingView content;
+
+    private long downTime;
+
+    private int panStoppedCount;
+
+    private int reportedPanY;
+
+    @Before
+    public void setUp() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+
+        panView = new PanView(activity);
+        content = new CountingView(activity);
+        panView.addView(content, new ViewGroup.LayoutParams(CONTENT_SIZE, CONTENT_SIZE));
+        activity.setContentView(panView);
+
+        // The window is never shown here, and a hidden PanView suspends its pans
+        ReflectionHelpers.callInstanceMethod(activity.getWindow().getDecorView().getParent(), "dispatchAppVisibility", ClassParameter.from(boolean.class, true));
+        ShadowLooper.idleMainLooper();
+
+        // Lay out as a full-screen viewport over larger content
+        int spec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+        panView.measure(spec, spec);
+        panView.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+
+        // Frames only go by when a test says so
+        ShadowLooper.pauseMainLooper();
+
+        panView.addOnPanStoppedListener(new PanView.OnPanStoppedListener() {
+
+            @Override
+            public void onPanStopped() {
+                panStoppedCount++;
+            }
+
+        });
+    }
+
+    @Test
+    public void touchDownCatchesSettlingPan() throws Exception {
+        // Fling, then let it move a frame on its own
+        panView.fling(0, 5000);
+        panView.panTo(0, 500);
+        assertEquals(PanView.PAN_STATE_SETTLING, panView.getPanState());
+
+        // Finger lands on the moving content and holds still
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, 500, 500, 0);
+        panView.dispatchTouchEvent(down);
+        down.recycle();
+        assertEquals(PanView.PAN_STATE_DRAGGING, panView.getPanState());
+
+        // Frames go by without movement, but the finger is still down
+        ShadowLooper.idleMainLooper(500);
+        assertEquals(PanView.PAN_STATE_DRAGGING, panView.getPanState());
+        assertEquals(0, panStoppedCount);
+
+        // Lifting the finger lets the pan settle and stop
+        MotionEvent up = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), MotionEvent.ACTION_UP, 500, 500, 0);
+        panView.dispatchTouchEvent(up);
+        up.recycle();
+        ShadowLooper.idleMainLooper(500);
+        assertEquals(PanView.PAN_STATE_IDLE, panView.getPanState());
+        assertEquals(1, panStoppedCount);
+    }
+
+    @Test
+    public void lazyEngine_measuresFittingContentOnce() throws Exception {
+        PanView lazyPanView = new PanView(panView.getContext());
+        lazyPanView.setLazyEngine(true);
+        MeasureCountingView fitting = new MeasureCountingView(panView.getContext());
+        lazyPanView.addView(fitting, new ViewGroup.LayoutParams(VIEWPORT_SIZE / 2, VIEWPORT_SIZE / 2));
+
+        // Attached beside the other, whose window holds its traversals
+        ((ViewGroup) panView.getParent()).addView(lazyPanView);
+
+        // Telling whether the content overflows is the measure itself
+        int spec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+        lazyPanView.measure(spec, spec);
+        lazyPanView.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+        assertEquals(1, fitting.measureCount);
+        assertSame(fitting, lazyPanView.getChildAt(0));
+
+        // Nothing changed, so nothing to measure
+        lazyPanView.forceLayout();
+        lazyPanView.measure(spec, spec);
+        assertEquals(1, fitting.measureCount);
+
+        // Content outgrows the viewport and brings in the engine
+        fitting.getLayoutParams().width = CONTENT_SIZE;
+        fitting.getLayoutParams().height = CONTENT_SIZE;
+        fitting.requestLayout();
+        lazyPanView.measure(spec, spec);
+        assertNotSame(fitting, lazyPanView.getChildAt(0));
+        assertSame(lazyPanView.getScrollViewY(), fitting.getParent());
+    }
+
+    @Test
+    public void flingLanding_countedOnlyWhereContentTellsWhenReady() throws Exception {
+        // Plain content gives no sign of its landing being ready
+        flingAndSettle();
+        assertEquals(1, panView.getPredictedFlingCount());
+        assertEquals(0, panView.getPredictedLandingTrackedCount());
+
+        // A culling layout does, and one culling around everything is ready anywhere
+        CullingLayout cullingLayout = new CullingLayout(panView.getContext());
+        cullingLayout.setCullMargin(CONTENT_SIZE);
+        cullingLayout.addView(new View(panView.getContext()), new FrameLayout.LayoutParams(CONTENT_SIZE, CONTENT_SIZE));
+        panView.removeAllViews();
+        panView.addView(cullingLayout, new ViewGroup.LayoutParams(CONTENT_SIZE, CONTENT_SIZE));
+        int spec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+        panView.measure(spec, spec);
+        panView.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+
+        flingAndSettle();
+        assertEquals(2, panView.getPredictedFlingCount());
+        assertEquals(1, panView.getPredictedLandingTrackedCount());
+        assertEquals(1, panView.getPredictedLandingReadyCount());
+    }
+
+    @Test
+    public void snapshotWhilePanning_drawsChildOncePerPan() throws Exception {
+        DrawCountingView drawCountingContent = new DrawCountingView(panView.getContext());
+        panView.removeAllViews();
+        panView.addView(drawCountingContent, new ViewGroup.LayoutParams(CONTENT_SIZE, CONTENT_SIZE));
+        int spec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+        panView.measure(spec, spec);
+        panView.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+
+        panView.setSnapshotWhilePanning(true);
+
+        // Taken in one go as the pan starts, then reused as it carries on within the margin
+        panView.panTo(0, 100);
+        assertEquals(PanView.PAN_STATE_SETTLING, panView.getPanState());
+        assertEquals(1, drawCountingContent.drawCount);
+        panView.panTo(0, 150);
+        assertEquals(1, drawCountingContent.drawCount);
+
+        // Let go once stopped, and taken afresh for the next pan
+        ShadowLooper.idleMainLooper(500);
+        assertEquals(PanView.PAN_STATE_IDLE, panView.getPanState());
+        panView.panTo(0, 200);
+        assertEquals(2, drawCountingContent.drawCount);
+    }
+
+    @Test
+    public void coalescedSmoothPan_reportsEachFrameInThatFrame() throws Exception {
+        // Frames have to pass between animation callbacks for a scroller to move in them
+        Activity activity = (Activity) panView.getContext();
+        panView.removeAllViews();
+        panView = new FramedPanView(activity);
+        panView.addView(content, new ViewGroup.LayoutParams(CONTENT_SIZE, CONTENT_SIZE));
+        activity.setContentView(panView);
+
+        // Positions only read back from the unified engine here, as the scroll views move theirs behind the shadows
+        panView.setUseUnifiedEngine(true);
+        int spec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+        panView.measure(spec, spec);
+        panView.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+
+        panView.setCoalescePanChanges(true);
+        panView.addOnPanChangedListener(new PanView.OnPanChangedListener() {
+
+            @Override
+            public void onPanChanged(int l, int t, int oldl, int oldt) {
+                reportedPanY = t;
+            }
+
+        });
+
+        // The scroller is stepped by the frame's draw, the first of which starts it moving
+        panView.setUseNativeSmoothScroll(true);
+        panView.smoothPanTo(0, CONTENT_SIZE - VIEWPORT_SIZE);
+        ShadowLooper.idleMainLooper(FRAME_MILLIS);
+        panView.getPanContainer().computeScroll();
+
+        // Each later frame steps it from its callbacks and reports where it went, with no draw at all
+        int lastPanY = panView.getPanY();
+        for (int i = 0; i < 10; i++) {
+            ShadowLooper.idleMainLooper(FRAME_MILLIS);
+
+            assertTrue(panView.getPanY() > lastPanY);
+            assertEquals(panView.getPanY(), reportedPanY);
+            lastPanY = panView.getPanY();
+        }
+
+        assertEquals(PanView.PAN_STATE_SETTLING, panView.getPanState());
+    }
+
+    @Test
+    public void tap_reachesEachEngineViewAndContentOncePerEvent() throws Exception {
+        downTime = SystemClock.uptimeMillis();
+
+        assertDispatches(MotionEvent.ACTION_DOWN, 500f, 500f, MotionEvent.ACTION_DOWN);
+        assertDispatches(MotionEvent.ACTION_MOVE, 502f, 501f, MotionEvent.ACTION_MOVE);
+        assertDispatches(MotionEvent.ACTION_UP, 502f, 501f, MotionEvent.ACTION_UP);
+    }
+
+    @Test
+    public void drag_cancelsContentOnceThenReachesEngineViewsOnly() throws Exception {
+        downTime = SystemClock.uptimeMillis();
+
+        assertDispatches(MotionEvent.ACTION_DOWN, 500f, 500f, MotionEvent.ACTION_DOWN);
+
+        // Passing the slop takes the gesture away from the content
+        assertDispatches(MotionEvent.ACTION_MOVE, 500f, 400f, MotionEvent.ACTION_CANCEL);
+
+        for (int i = 0; i < 100; i++) {
+            assertDispatches(MotionEvent.ACTION_MOVE, 500f - i, 400f - i, -1);
+        }
+
+        assertDispatches(MotionEvent.ACTION_UP, 400f, 300f, -1);
+    }
+
+    @Test
+    public void drag_skipsAxisWithNoRoomToMove() throws Exception {
+        // Content pans sideways only
+        content.setLayoutParams(new FrameLayout.LayoutParams(CONTENT_SIZE, VIEWPORT_SIZE / 2));
+        int spec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+        panView.measure(spec, spec);
+        panView.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+
+        downTime = SystemClock.uptimeMillis();
+
+        // Only the horizontal engine view runs a touch pipeline
+        assertDispatches(MotionEvent.ACTION_DOWN, 500f, 250f, MotionEvent.ACTION_DOWN, 1, 0);
+        assertDispatches(MotionEvent.ACTION_MOVE, 400f, 250f, MotionEvent.ACTION_CANCEL, 1, 0);
+        assertDispatches(MotionEvent.ACTION_MOVE, 300f, 200f, -1, 1, 0);
+        assertDispatches(MotionEvent.ACTION_UP, 300f, 200f, -1, 1, 0);
+
+        // And still pans
+        assertTrue(panView.getPanX() > 0);
+        assertEquals(0, panView.getPanY());
+    }
+
+    private void assertDispatches(int action, float x, float y, int contentAction) {
+        assertDispatches(action, x, y, contentAction, 1, 1);
+    }
+
+    private void assertDispatches(int action, float x, float y, int contentAction, int touchEventCountX, int touchEventCountY) {
+        ShadowCountingHorizontalScrollView scrollViewX = (ShadowCountingHorizontalScrollView) ShadowExtractor.extract(panView.getScrollViewX());
+        ShadowCountingScrollView scrollViewY = (ShadowCountingScrollView) ShadowExtractor.extract(panView.getScrollViewY());
+
+        scrollViewX.reset();
+        scrollViewY.reset();
+        content.reset();
+
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        panView.dispatchTouchEvent(event);
+        event.recycle();
+
+        // The horizontal engine view is dispatched the event and handles it itself if it can move
+        assertEquals(1, scrollViewX.dispatchTouchEventCount);
+        assertEquals(touchEventCountX, scrollViewX.touchEventCount);
+
+        // The vertical engine view is handed the event directly if it can move, never dispatched it
+        assertEquals(0, scrollViewY.dispatchTouchEventCount);
+        assertEquals(touchEventCountY, scrollViewY.touchEventCount);
+
+        // Content sees the event, or a cancel in its place, at most once
+        if (contentAction < 0) {
+            assertEquals(0, content.dispatchTouchEventCount);
+        } else {
+            assertEquals(1, content.dispatchTouchEventCount);
+            assertEquals(contentAction, content.lastAction);
+        }
+    }
+
+    private void flingAndSettle() {
+        // Fling, let it move a frame on its own, then let it stop
+        panView.fling(0, 5000);
+        panView.panTo(0, panView.getPanY() + 500);
+        ShadowLooper.idleMainLooper(500);
+        assertEquals(PanView.PAN_STATE_IDLE, panView.getPanState());
+    }
+
+    private static class FramedPanView extends PanView {
+
+        FramedPanView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void postOnAnimation(Runnable action) {
+            // Run on the next frame rather than as soon as the looper idles
+            postDelayed(action, FRAME_MILLIS);
+        }
+
+    }
+
+    private static class MeasureCountingView extends View {
+
+        int measureCount;
+
+        MeasureCountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+    }
+
+    private static class DrawCountingView extends View {
+
+        int drawCount;
+
+        DrawCountingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            drawCount++;
+            super.draw(canvas);
+        }
+
+    }
+
+    private static class CountingView extends View {
+
+        int dispatchTouchEventCount;
+        int lastAction;
+
+        CountingView(Context context) {
+            super(context);
+        }
+
+        void reset() {
+            dispatchTouchEventCount = 0;
+            lastAction = -1;
+        }
+
+        @Override
+        public boolean dispatchTouchEvent(MotionEvent event) {
+            dispatchTouchEventCount++;
+            lastAction = event.getActionMasked();
+
+            // Take the gesture, as a clickable child would
+            return true;
+        }
+
+    }
+
+    @Implements(ViewGroup.class)
+    public static class ShadowCountingViewGroup extends ShadowViewGroup {
+
+        int dispatchTouchEventCount;
+
+        void reset() {
+            dispatchTouchEventCount = 0;
+        }
+
+        @Implementation
+        public boolean dispatchTouchEvent(MotionEvent event) {
+            dispatchTouchEventCount++;
+            return Shadow.directlyOn(realViewGroup, ViewGroup.class).dispatchTouchEvent(event);
+        }
+
+    }
+
+    // PanView itself, which would otherwise get a shadow that does not count
+    @Implements(FrameLayout.class)
+    public static class ShadowCountingFrameLayout extends ShadowCountingViewGroup {
+    }
+
+    @Implements(HorizontalScrollView.class)
+    public static class ShadowCountingHorizontalScrollView extends ShadowCountingViewGroup {
+
+        @RealObject
+        private HorizontalScrollView realHorizontalScrollView;
+
+        int touchEventCount;
+
+        @Override
+        void reset() {
+            super.reset();
+            touchEventCount = 0;
+        }
+
+        @Implementation
+        public boolean onTouchEvent(MotionEvent event) {
+            touchEventCount++;
+            return Shadow.directlyOn(realHorizontalScrollView, HorizontalScrollView.class).onTouchEvent(event);
+        }
+
+    }
+
+    @Implements(ScrollView.class)
+    public static class ShadowCountingScrollView extends ShadowCountingViewGroup {
+
+        @RealObject
+        private ScrollView realScrollView;
+
+        int touchEventCount;
+
+        @Override
+        void reset() {
+            super.reset();
+            touchEventCount = 0;
+        }
+
+        @Implementation
+        public boolean onTouchEvent(MotionEvent event) {
+            touchEventCount++;
+            return Shadow.directlyOn(realScrollView, ScrollView.class).onTouchEvent(event);
+        }
+
+    }
+
+}
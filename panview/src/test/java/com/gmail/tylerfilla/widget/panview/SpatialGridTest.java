@@ -0,0 +1,85 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpatialGridTest {
+
+    private SpatialGrid<String> grid;
+
+    @Before
+    public void setUp() throws Exception {
+        grid = new SpatialGrid<>(100);
+    }
+
+    @Test
+    public void find_returnsTopmostContainingItem() throws Exception {
+        grid.put("a", 0, 0, 0, 150, 150);
+        grid.put("b", 1, 100, 100, 250, 250);
+
+        assertEquals("a", grid.find(50, 50));
+        assertEquals("b", grid.find(120, 120));
+        assertEquals("b", grid.find(200, 200));
+        assertNull(grid.find(300, 300));
+
+        // Right and bottom edges are exclusive
+        assertNull(grid.find(250, 120));
+    }
+
+    @Test
+    public void put_movesItemIncrementally() throws Exception {
+        grid.put("a", 0, 0, 0, 50, 50);
+        grid.put("a", 0, 500, 500, 550, 550);
+
+        assertNull(grid.find(10, 10));
+        assertEquals("a", grid.find(510, 510));
+        assertEquals(1, grid.size());
+
+        grid.remove("a");
+        assertNull(grid.find(510, 510));
+        assertEquals(0, grid.size());
+    }
+
+    @Test
+    public void find_coversOversizedAndNegativeItems() throws Exception {
+        grid.put("background", 0, 0, 0, 100000, 100000);
+        grid.put("cell", 1, 5000, 5000, 5050, 5050);
+        grid.put("negative", 2, -150, -150, -50, -50);
+
+        assertEquals("cell", grid.find(5010, 5010));
+        assertEquals("background", grid.find(90000, 90000));
+        assertEquals("negative", grid.find(-100, -100));
+        assertNull(grid.find(-10, -10));
+    }
+
+    @Test
+    public void find_coversItemsTooFarApartForOneGrid() throws Exception {
+        grid.put("near", 0, 0, 0, 50, 50);
+        grid.put("far", 1, 1000000000, 1000000000, 1000000050, 1000000050);
+        grid.put("between", 2, 5000, 5000, 5050, 5050);
+
+        assertEquals("near", grid.find(10, 10));
+        assertEquals("far", grid.find(1000000010, 1000000010));
+        assertEquals("between", grid.find(5010, 5010));
+
+        grid.remove("far");
+        assertNull(grid.find(1000000010, 1000000010));
+    }
+
+    @Test
+    public void sweep_dropsItemsNotPutAgain() throws Exception {
+        grid.put("a", 0, 0, 0, 50, 50);
+        grid.put("b", 1, 200, 200, 250, 250);
+
+        grid.beginSweep();
+        grid.put("b", 0, 200, 200, 250, 250);
+        grid.endSweep();
+
+        assertNull(grid.find(10, 10));
+        assertEquals("b", grid.find(210, 210));
+        assertEquals(1, grid.size());
+    }
+
+}
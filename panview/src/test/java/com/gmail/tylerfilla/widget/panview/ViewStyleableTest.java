@@ -0,0 +1,60 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ViewStyleableTest {
+
+    @Test
+    public void get_resolvesOnceAndShares() throws Exception {
+        assertSame(ViewStyleable.get(), ViewStyleable.get());
+    }
+
+    @Test
+    public void resolve_readsPrivateTable() throws Exception {
+        ViewStyleable viewStyleable = ViewStyleable.resolve(FakeStyleable.class.getName());
+
+        assertTrue(viewStyleable.reflected);
+        assertSame(FakeStyleable.View, viewStyleable.attrs);
+        assertEquals(FakeStyleable.View_scrollbarSize, viewStyleable.scrollbarSize);
+        assertEquals(FakeStyleable.View_scrollbars, viewStyleable.scrollbars);
+    }
+
+    @Test
+    public void resolve_fallsBackToSortedPublicAttrs() throws Exception {
+        ViewStyleable viewStyleable = ViewStyleable.resolve("android.R$doesNotExist");
+
+        assertFalse(viewStyleable.reflected);
+
+        // Sorted, as obtainStyledAttributes requires
+        for (int i = 1; i < viewStyleable.attrs.length; i++) {
+            assertTrue(viewStyleable.attrs[i - 1] < viewStyleable.attrs[i]);
+        }
+
+        // Indices point back at the right attributes
+        assertEquals(android.R.attr.fadeScrollbars, viewStyleable.attrs[viewStyleable.fadeScrollbars]);
+        assertEquals(android.R.attr.scrollbarSize, viewStyleable.attrs[viewStyleable.scrollbarSize]);
+        assertEquals(android.R.attr.scrollbarTrackVertical, viewStyleable.attrs[viewStyleable.scrollbarTrackVertical]);
+        assertEquals(android.R.attr.scrollbars, viewStyleable.attrs[viewStyleable.scrollbars]);
+    }
+
+    // Same shape as the platform's private android.R.styleable
+    public static final class FakeStyleable {
+
+        public static final int[] View = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+
+        public static final int View_fadeScrollbars = 0;
+        public static final int View_scrollbarDefaultDelayBeforeFade = 1;
+        public static final int View_scrollbarFadeDuration = 2;
+        public static final int View_scrollbarSize = 3;
+        public static final int View_scrollbarStyle = 4;
+        public static final int View_scrollbarThumbHorizontal = 5;
+        public static final int View_scrollbarThumbVertical = 6;
+        public static final int View_scrollbarTrackHorizontal = 7;
+        public static final int View_scrollbarTrackVertical = 8;
+        public static final int View_scrollbars = 9;
+
+    }
+
+}
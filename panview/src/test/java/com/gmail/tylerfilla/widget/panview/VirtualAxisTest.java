@@ -0,0 +1,66 @@
+package com.gmail.tylerfilla.widget.panview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VirtualAxisTest {
+
+    private static final int VIEWPORT = 1000;
+
+    private VirtualAxis axis;
+
+    @Before
+    public void setUp() throws Exception {
+        axis = new VirtualAxis();
+        axis.setViewportSize(VIEWPORT);
+    }
+
+    @Test
+    public void place_smallContentNeverMovesOrigin() throws Exception {
+        axis.setContentSize(2500);
+
+        assertEquals(2500, axis.getWindowSize());
+        assertEquals(0, axis.place(0));
+        assertEquals(1500, axis.place(1500));
+        assertEquals(1500, axis.place(99999));
+        assertEquals(0, axis.getOrigin());
+    }
+
+    @Test
+    public void place_hugeContentKeepsScrollInWindow() throws Exception {
+        axis.setContentSize(Long.MAX_VALUE / 2);
+
+        long pan = Long.MAX_VALUE / 4 + 12345;
+        int scroll = axis.place(pan);
+
+        // Logical pan survives exactly, and the real scroll sits in the middle band
+        assertEquals(pan, axis.getOrigin() + scroll);
+        assertTrue(scroll >= VIEWPORT && scroll <= axis.getWindowSize() - 2 * VIEWPORT);
+
+        // Clamped to the far end
+        scroll = axis.place(Long.MAX_VALUE);
+        assertEquals(axis.getRange(), axis.getOrigin() + scroll);
+        assertTrue(scroll <= axis.getWindowSize() - VIEWPORT);
+    }
+
+    @Test
+    public void rebase_onlyOnceScrollLeavesBand() throws Exception {
+        axis.setContentSize(1000000000000L);
+
+        int scroll = axis.place(500000000000L);
+        long origin = axis.getOrigin();
+
+        // A small drag stays within the band
+        assertEquals(0, axis.rebase(scroll + 100));
+        assertEquals(origin, axis.getOrigin());
+
+        // Near the edge of the window the origin follows, keeping the logical pan
+        int edge = axis.getWindowSize() - VIEWPORT - 10;
+        long shift = axis.rebase(edge);
+        assertTrue(shift > 0);
+        assertEquals(origin + edge, axis.getOrigin() + edge - shift);
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.gmail.tylerfilla.widget.panview.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+final class Benchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    // Allocation barely varies between runs, so it is what fails a run (plus some noise, in bytes per op)
+    private static final double ALLOCATION_THRESHOLD = 1.25;
+    private static final long ALLOCATION_SLACK = 16;
+
+    private static final String NS_SUFFIX = ".nsPerOp";
+    private static final String BYTES_SUFFIX = ".bytesPerOp";
+
+    private Benchmark() {
+    }
+
+    static void run(String name, int ops, Runnable op) throws IOException {
+        com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Warm up so class loading and compilation do not count
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            for (int j = 0; j < ops; j++) {
+                op.run();
+            }
+        }
+
+        // Keep the best round, as everything slower is interference
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long startBytes = allocationBean == null ? 0 : allocationBean.getThreadAllocatedBytes(threadId);
+            long startNanos = System.nanoTime();
+
+            for (int j = 0; j < ops; j++) {
+                op.run();
+            }
+
+            bestNanos = Math.min(bestNanos, System.nanoTime() - startNanos);
+            if (allocationBean != null) {
+                bestBytes = Math.min(bestBytes, allocationBean.getThreadAllocatedBytes(threadId) - startBytes);
+            }
+        }
+
+        long nsPerOp = bestNanos / ops;
+        long bytesPerOp = allocationBean == null ? -1 : bestBytes / ops;
+
+        report(name, nsPerOp, bytesPerOp);
+    }
+
+    private static void report(String name, long nsPerOp, long bytesPerOp) throws IOException {
+        File baselineFile = new File(System.getProperty("benchmark.baseline", "benchmark-baseline.properties"));
+        Properties baseline = load(baselineFile);
+
+        // Recording replaces the baseline instead of checking against it
+        if (Boolean.getBoolean("benchmark.record")) {
+            Properties recorded = new Properties();
+            recorded.setProperty(name + NS_SUFFIX, Long.toString(nsPerOp));
+            if (bytesPerOp >= 0) {
+                recorded.setProperty(name + BYTES_SUFFIX, Long.toString(bytesPerOp));
+            }
+
+            store(baselineFile, recorded);
+            return;
+        }
+
+        // An unrecorded benchmark would pass unchecked forever
+        String baselineNs = baseline.getProperty(name + NS_SUFFIX);
+        assertNotNull(name + " has no " + NS_SUFFIX + " baseline in " + baselineFile + "; record one with -Pbenchmark.record", baselineNs);
+
+        // Time varies severalfold between runs on a shared machine, so it is only checked on request
+        String threshold = System.getProperty("benchmark.threshold");
+        if (threshold != null) {
+            long nsLimit = (long) (Long.parseLong(baselineNs) * Double.parseDouble(threshold));
+            assertTrue(name + " regressed: " + nsPerOp + " ns/op against a baseline of " + baselineNs + " (limit " + nsLimit + ")", nsPerOp <= nsLimit);
+        }
+
+        // Allocation is only checked where the JVM can count it
+        if (bytesPerOp >= 0) {
+            String baselineBytes = baseline.getProperty(name + BYTES_SUFFIX);
+            assertNotNull(name + " has no " + BYTES_SUFFIX + " baseline in " + baselineFile + "; record one with -Pbenchmark.record", baselineBytes);
+
+            long bytesLimit = (long) (Long.parseLong(baselineBytes) * ALLOCATION_THRESHOLD) + ALLOCATION_SLACK;
+            assertTrue(name + " regressed: " + bytesPerOp + " B/op against a baseline of " + baselineBytes + " (limit " + bytesLimit + ")", bytesPerOp <= bytesLimit);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        // Allocation counting is a HotSpot extension
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        return allocationBean;
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+
+        // No baseline yet
+        if (!file.exists()) {
+            return properties;
+        }
+
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+
+        return properties;
+    }
+
+    private static void store(File file, Properties recorded) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        // Keep the file as it is (comments included), only swapping in the recorded values
+        if (file.exists()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "ISO-8859-1"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int separator = line.indexOf('=');
+                    String key = separator < 0 || line.startsWith("#") ? null : line.substring(0, separator).trim();
+
+                    if (key != null && recorded.containsKey(key)) {
+                        line = key + "=" + recorded.getProperty(key);
+                        recorded.remove(key);
+                    }
+
+                    lines.add(line);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+
+        // New entries go at the end, in a stable order
+        for (String key : new TreeSet<>(recorded.stringPropertyNames())) {
+            lines.add(key + "=" + recorded.getProperty(key));
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "ISO-8859-1");
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.gmail.tylerfilla.widget.panview.benchmark;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.gmail.tylerfilla.widget.panview.BuildConfig;
+import com.gmail.tylerfilla.widget.panview.CullingLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Random;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class CullingLayoutBenchmark {
+
+    private static final int ITEM_SIZE = 48;
+
+    private static final int TAP_COUNT = 4096;
+
+    // Robolectric views take some 16KB each, so a hundred thousand of them do not fit a test heap
+    @Test
+    public void hitTest1000() throws Exception {
+        hitTest("hitTest1000", 1000);
+    }
+
+    @Test
+    public void hitTest10000() throws Exception {
+        hitTest("hitTest10000", 10000);
+    }
+
+    private void hitTest(String name, int itemCount) throws Exception {
+        Context context = RuntimeEnvironment.application;
+
+        // Square sheet of equal clickable cells, like a seating map
+        int columns = (int) Math.ceil(Math.sqrt(itemCount));
+        int rows = (itemCount + columns - 1) / columns;
+
+        final CullingLayout cullingLayout = new CullingLayout(context);
+        cullingLayout.setHitTestIndexEnabled(true);
+        for (int i = 0; i < itemCount; i++) {
+            FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(ITEM_SIZE, ITEM_SIZE);
+            layoutParams.leftMargin = (i % columns) * ITEM_SIZE;
+            layoutParams.topMargin = (i / columns) * ITEM_SIZE;
+
+            View item = new View(context);
+            item.setClickable(true);
+            cullingLayout.addView(item, layoutParams);
+        }
+
+        // Laying out fills the grid
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(columns * ITEM_SIZE, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(rows * ITEM_SIZE, View.MeasureSpec.EXACTLY);
+        cullingLayout.measure(widthSpec, heightSpec);
+        cullingLayout.layout(0, 0, columns * ITEM_SIZE, rows * ITEM_SIZE);
+
+        // Same taps on every run
+        Random random = new Random(itemCount);
+        final int[] taps = new int[TAP_COUNT * 2];
+        for (int i = 0; i < TAP_COUNT; i++) {
+            taps[i * 2] = random.nextInt(columns * ITEM_SIZE);
+            taps[i * 2 + 1] = random.nextInt((itemCount / columns) * ITEM_SIZE);
+        }
+
+        long downTime = SystemClock.uptimeMillis();
+        final MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, 0, 0, 0);
+        final MotionEvent cancel = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_CANCEL, 0, 0, 0);
+
+        // A tap lands on an item, which is then let go of
+        Benchmark.run(name, TAP_COUNT, new Runnable() {
+
+            private int tap;
+
+            @Override
+            public void run() {
+                down.setLocation(taps[tap * 2], taps[tap * 2 + 1]);
+                cancel.setLocation(taps[tap * 2], taps[tap * 2 + 1]);
+                tap = (tap + 1) % TAP_COUNT;
+
+                cullingLayout.dispatchTouchEvent(down);
+                cullingLayout.dispatchTouchEvent(cancel);
+            }
+
+        });
+
+        down.recycle();
+        cancel.recycle();
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.gmail.tylerfilla.widget.panview.benchmark;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityManager;
+import android.widget.HorizontalScrollView;
+import android.widget.ScrollView;
+
+import com.gmail.tylerfilla.widget.panview.BuildConfig;
+import com.gmail.tylerfilla.widget.panview.PanView;
+import com.gmail.tylerfilla.widget.panview.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.Resetter;
+import org.robolectric.shadows.ShadowAccessibilityManager;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+import org.robolectric.util.ReflectionHelpers.ClassParameter;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        PanViewBenchmark.ShadowCachedAccessibilityManager.class
+})
+public class PanViewBenchmark {
+
+    private static final int VIEWPORT_SIZE = 1000;
+    private static final int CONTENT_SIZE = 4000;
+
+    private static final int LISTENER_COUNT = 4;
+
+    private Context context;
+    private PanView panView;
+
+    private int panChangedCount;
+
+    @Before
+    public void setUp() throws Exception {
+        context = RuntimeEnvironment.application;
+
+        // Attached, as the engine is only spliced in once there is a window
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        panView = new PanView(context);
+        panView.addView(new View(context), new ViewGroup.LayoutParams(CONTENT_SIZE, CONTENT_SIZE));
+        activity.setContentView(panView);
+
+        // The window is never shown here, and a hidden PanView suspends its pans
+        ReflectionHelpers.callInstanceMethod(activity.getWindow().getDecorView().getParent(), "dispatchAppVisibility", ClassParameter.from(boolean.class, true));
+        ShadowLooper.idleMainLooper();
+
+        // Lay out as a full-screen viewport over larger content
+        int spec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+        panView.measure(spec, spec);
+        panView.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+
+        // Frame callbacks wait rather than running inside every op
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @Test
+    public void touchMove() throws Exception {
+        final HorizontalScrollView scrollViewX = panView.getScrollViewX();
+
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, 500, 500, 0);
+        final MotionEvent move = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_MOVE, 500, 500, 0);
+
+        // Start a drag, then keep moving back and forth within it
+        scrollViewX.onTouchEvent(down);
+        Benchmark.run("touchMove", 1000, new Runnable() {
+
+            private boolean left;
+
+            @Override
+            public void run() {
+                left = !left;
+                move.setLocation(left ? 300 : 700, 500);
+                scrollViewX.onTouchEvent(move);
+            }
+
+        });
+
+        down.recycle();
+        move.recycle();
+    }
+
+    @Test
+    public void panChangedFanOut() throws Exception {
+        for (int i = 0; i < LISTENER_COUNT; i++) {
+            panView.addOnPanChangedListener(new PanView.OnPanChangedListener() {
+
+                @Override
+                public void onPanChanged(int l, int t, int oldl, int oldt) {
+                    panChangedCount++;
+                }
+
+            });
+        }
+
+        final HorizontalScrollView scrollViewX = panView.getScrollViewX();
+
+        // Every scroll goes through onScrollChanged to the listeners
+        Benchmark.run("panChangedFanOut", 1000, new Runnable() {
+
+            private boolean right;
+
+            @Override
+            public void run() {
+                right = !right;
+                scrollViewX.scrollTo(right ? 100 : 0, 0);
+            }
+
+        });
+    }
+
+    @Test
+    public void measure() throws Exception {
+        final ScrollView scrollViewY = panView.getScrollViewY();
+
+        // Alternate widths so every pass really measures
+        final int narrowSpec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE - 1, View.MeasureSpec.EXACTLY);
+        final int wideSpec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+        final int heightSpec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+
+        Benchmark.run("measure", 1000, new Runnable() {
+
+            private boolean wide;
+
+            @Override
+            public void run() {
+                wide = !wide;
+                scrollViewY.measure(wide ? wideSpec : narrowSpec, heightSpec);
+            }
+
+        });
+    }
+
+    @Test
+    public void smoothPanToSetup() throws Exception {
+        // Animator path, as native smooth scrolling just hands off to the scroll views
+        panView.setUseNativeSmoothScroll(false);
+
+        Benchmark.run("smoothPanToSetup", 5000, new Runnable() {
+
+            private boolean far;
+
+            @Override
+            public void run() {
+                far = !far;
+                panView.smoothPanTo(far ? 2000 : 0, far ? 2000 : 0);
+            }
+
+        });
+    }
+
+    @Test
+    public void inflate() throws Exception {
+        final AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.fillViewportWidth, "true")
+                .addAttribute(R.attr.coalescePanChanges, "true")
+                .build();
+
+        // Constructing with attributes runs handleAttrs, which reads the styleable table shared by all views
+        Benchmark.run("inflate", 200, new Runnable() {
+
+            @Override
+            public void run() {
+                new PanView(context, attrs);
+            }
+
+        });
+    }
+
+    @Test
+    public void fitContentEager() throws Exception {
+        fitContent("fitContentEager", false);
+    }
+
+    @Test
+    public void fitContentLazy() throws Exception {
+        fitContent("fitContentLazy", true);
+    }
+
+    private void fitContent(String name, boolean lazyEngine) throws Exception {
+        final ViewGroup root = (ViewGroup) Robolectric.setupActivity(Activity.class).findViewById(android.R.id.content);
+        final AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.lazyEngine, String.valueOf(lazyEngine))
+                .build();
+        final int spec = View.MeasureSpec.makeMeasureSpec(VIEWPORT_SIZE, View.MeasureSpec.EXACTLY);
+
+        // Hold the window's traversals, as they would lay out the whole activity on every attach
+        ShadowLooper.pauseMainLooper();
+
+        // Inflate, attach and lay out a row whose content fits, as a list would, to compare time and allocation
+        Benchmark.run(name, 200, new Runnable() {
+
+            @Override
+            public void run() {
+                PanView fitting = new PanView(context, attrs);
+                fitting.addView(new View(context), new ViewGroup.LayoutParams(VIEWPORT_SIZE / 2, VIEWPORT_SIZE / 2));
+
+                root.addView(fitting);
+                fitting.measure(spec, spec);
+                fitting.layout(0, 0, VIEWPORT_SIZE, VIEWPORT_SIZE);
+                root.removeView(fitting);
+            }
+
+        });
+
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    // Robolectric builds a new accessibility service on every lookup, and every scroll looks it up
+    @Implements(AccessibilityManager.class)
+    public static class ShadowCachedAccessibilityManager extends ShadowAccessibilityManager {
+
+        private static AccessibilityManager instance;
+
+        @Implementation
+        public static AccessibilityManager getInstance(Context context) throws Exception {
+            if (instance == null) {
+                instance = ShadowAccessibilityManager.getInstance(context);
+            }
+
+            return instance;
+        }
+
+        @Resetter
+        public static void reset() {
+            instance = null;
+        }
+
+    }
+
+}